@@ -1,10 +1,18 @@
 package com.masuary.entitylibrary.client;
 
 import com.masuary.entitylibrary.EntityLibraryMod;
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.data.EntityConstructionWatchdog;
+import com.masuary.entitylibrary.client.data.LivingTypeClassifier;
+import com.masuary.entitylibrary.client.data.LootIndex;
+import com.masuary.entitylibrary.client.data.PreviewEntityPool;
 import com.masuary.entitylibrary.client.screen.EntityLibraryScreen;
 import net.minecraft.client.Minecraft;
+import net.minecraft.server.MinecraftServer;
 import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
@@ -24,8 +32,41 @@ public final class ClientForgeEvents {
             return;
         }
 
+        LivingTypeClassifier.get().tick(mc.level);
+
+        MinecraftServer server = mc.getSingleplayerServer();
+        if (server != null && !LootIndex.get().isCurrent(server.getResourceManager())) {
+            LootIndex.get().update(EntityCatalog.get(), server.getResourceManager());
+        }
+
         while (ClientKeybinds.OPEN_LIBRARY.consumeClick()) {
             mc.setScreen(new EntityLibraryScreen(mc.screen));
         }
     }
+
+    @SubscribeEvent
+    public static void onLoggedIn(ClientPlayerNetworkEvent.LoggedInEvent event) {
+        LivingTypeClassifier.get().start();
+    }
+
+    @SubscribeEvent
+    public static void onWorldLoad(WorldEvent.Load event) {
+        if (event.getWorld().isClientSide()) {
+            LivingTypeClassifier.get().retryFailed();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isClientSide()) {
+            EntityCatalog.onWorldUnloaded();
+            PreviewEntityPool.get().clear();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLoggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        EntityConstructionWatchdog.get().writeReport();
+        LootIndex.get().clear();
+    }
 }
@@ -1,6 +1,8 @@
 package com.masuary.entitylibrary.client;
 
 import com.masuary.entitylibrary.EntityLibraryMod;
+import com.masuary.entitylibrary.client.data.EntityConstructionWatchdog;
+import com.masuary.entitylibrary.client.data.EntityRenderWatchdog;
 import com.masuary.entitylibrary.client.data.FavoritesManager;
 import com.masuary.entitylibrary.client.data.ThemeManager;
 import com.mojang.blaze3d.platform.InputConstants;
@@ -33,6 +35,8 @@ public final class ClientKeybinds {
                 ClientRegistry.registerKeyBinding(OPEN_LIBRARY);
                 ThemeManager.get().load();
                 FavoritesManager.get().load();
+                EntityConstructionWatchdog.get().load();
+                EntityRenderWatchdog.get().load();
             });
         }
     }
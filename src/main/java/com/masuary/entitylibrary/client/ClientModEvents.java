@@ -0,0 +1,25 @@
+package com.masuary.entitylibrary.client;
+
+import com.masuary.entitylibrary.EntityLibraryMod;
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.screen.ThumbnailAtlas;
+import net.minecraft.server.packs.resources.ResourceManagerReloadListener;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.RegisterClientReloadListenersEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+@Mod.EventBusSubscriber(modid = EntityLibraryMod.MODID, value = Dist.CLIENT, bus = Mod.EventBusSubscriber.Bus.MOD)
+public final class ClientModEvents {
+    private ClientModEvents() {}
+
+    @SubscribeEvent
+    public static void onRegisterReloadListeners(RegisterClientReloadListenersEvent event) {
+        // Language changes are applied through a resource reload, so this also catches those.
+        event.registerReloadListener((ResourceManagerReloadListener) resourceManager -> {
+            EntityCatalog.onResourcesReloaded();
+            // Resource packs can retexture entities, so every thumbnail is re-rendered.
+            ThumbnailAtlas.get().clear();
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.masuary.entitylibrary.client.data;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.fml.loading.FMLPaths;
+import net.minecraftforge.forgespi.language.IModInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Display names and living-type results from the {@link EntityCatalog}, persisted across launches.
+ * The file is keyed by a fingerprint of the loaded mods and the selected language; when either
+ * changes the file is ignored and rebuilt once classification finishes.
+ */
+public final class ClassificationCache {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final ClassificationCache INSTANCE = new ClassificationCache();
+
+    private static final int MAGIC = 0x454C4343;
+    private static final int FORMAT_VERSION = 2;
+    private static final byte LIVING_UNKNOWN = 0;
+    private static final byte LIVING_NO = 1;
+    private static final byte LIVING_YES = 2;
+    private static final byte LIVING_FAILED = 3;
+
+    private ClassificationCache() {}
+
+    public static ClassificationCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Restores names and living-type results into the catalog if the file matches the current
+     * mod list and language.
+     *
+     * @return catalog indices whose living type was restored, empty if the file is missing or stale
+     */
+    public IntList load(EntityCatalog catalog) {
+        IntList restored = new IntArrayList();
+        Path file = getCachePath();
+        if (!Files.exists(file)) {
+            return restored;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != fingerprint()) {
+                LOGGER.debug("Entity classification cache is stale, rebuilding");
+                return restored;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ResourceLocation id = ResourceLocation.tryParse(in.readUTF());
+                byte livingState = in.readByte();
+                String name = in.readUTF();
+                int index = id == null ? -1 : catalog.indexOf(id);
+                if (index < 0) {
+                    continue;
+                }
+                catalog.setName(index, name);
+                if (livingState != LIVING_UNKNOWN && !catalog.isClassified(index)) {
+                    if (livingState == LIVING_FAILED) {
+                        catalog.markConstructionFailed(index);
+                    } else {
+                        catalog.setLiving(index, livingState == LIVING_YES);
+                    }
+                    restored.add(index);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to load entity classification cache", e);
+        }
+        return restored;
+    }
+
+    public void save(EntityCatalog catalog) {
+        Path file = getCachePath();
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(fingerprint());
+                out.writeInt(catalog.size());
+                for (int i = 0; i < catalog.size(); i++) {
+                    out.writeUTF(catalog.id(i).toString());
+                    out.writeByte(livingState(catalog, i));
+                    out.writeUTF(catalog.name(i));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save entity classification cache", e);
+        }
+    }
+
+    private static byte livingState(EntityCatalog catalog, int index) {
+        if (!catalog.isClassified(index)) {
+            return LIVING_UNKNOWN;
+        }
+        if (catalog.isConstructionFailed(index)) {
+            return LIVING_FAILED;
+        }
+        return catalog.isLiving(index) ? LIVING_YES : LIVING_NO;
+    }
+
+    /**
+     * Hash of every loaded mod's ID and version plus the selected language code.
+     */
+    public static long fingerprint() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putModList(hasher);
+        hasher.putString(Minecraft.getInstance().getLanguageManager().getSelected().getCode(), StandardCharsets.UTF_8);
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Feeds every loaded mod's ID and version into the hasher, in mod ID order.
+     */
+    public static void putModList(Hasher hasher) {
+        List<IModInfo> mods = new ArrayList<>(ModList.get().getMods());
+        mods.sort(Comparator.comparing(IModInfo::getModId));
+        for (IModInfo mod : mods) {
+            hasher.putString(mod.getModId(), StandardCharsets.UTF_8);
+            hasher.putChar('@');
+            hasher.putString(mod.getVersion().toString(), StandardCharsets.UTF_8);
+            hasher.putChar(';');
+        }
+    }
+
+    private static Path getCachePath() {
+        return FMLPaths.CONFIGDIR.get().resolve("entitylibrary").resolve("classification.bin");
+    }
+}
@@ -0,0 +1,311 @@
+package com.masuary.entitylibrary.client.data;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.EntityDimensions;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.MobCategory;
+import net.minecraft.world.entity.ai.attributes.AttributeSupplier;
+import net.minecraft.world.entity.ai.attributes.Attributes;
+import net.minecraft.world.entity.ai.attributes.DefaultAttributes;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Every registered entity type with its metadata, stored in primitive columns. Each type gets a
+ * dense index from its position in the list sorted by namespace then path; search, facets,
+ * filters and the list widget all address entries by that index instead of hashing IDs.
+ */
+public final class EntityCatalog {
+    private static final MobCategory[] CATEGORIES = MobCategory.values();
+
+    private static final byte FLAG_CLASSIFIED = 1;
+    private static final byte FLAG_LIVING = 1 << 1;
+    private static final byte FLAG_HAS_ATTRIBUTES = 1 << 2;
+    private static final byte FLAG_DROPS_LOADED = 1 << 3;
+    private static final byte FLAG_CONSTRUCTION_FAILED = 1 << 4;
+
+    @Nullable
+    private static EntityCatalog instance;
+
+    private final ResourceLocation[] ids;
+    private final Object2IntMap<ResourceLocation> indices;
+    private final String[] names;
+    private final byte[] category;
+    private final float[] width;
+    private final float[] height;
+    private final float[] health;
+    private final byte[] flags;
+    private final List<String>[] drops;
+    private final String[][] lowercaseDrops;
+    private int nameGeneration;
+    private int pendingNameRefresh;
+
+    @SuppressWarnings("unchecked")
+    private EntityCatalog(ResourceLocation[] ids) {
+        int size = ids.length;
+        this.ids = ids;
+        this.indices = new Object2IntOpenHashMap<>(size);
+        this.indices.defaultReturnValue(-1);
+        this.names = new String[size];
+        this.category = new byte[size];
+        this.width = new float[size];
+        this.height = new float[size];
+        this.health = new float[size];
+        this.flags = new byte[size];
+        this.drops = (List<String>[]) new List<?>[size];
+        this.lowercaseDrops = new String[size][];
+    }
+
+    /**
+     * The catalog for the current entity registry, built on first use.
+     */
+    public static EntityCatalog get() {
+        if (instance == null || instance.size() != ForgeRegistries.ENTITIES.getKeys().size()) {
+            instance = build();
+        }
+        return instance;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EntityCatalog build() {
+        List<ResourceLocation> sorted = new ArrayList<>(ForgeRegistries.ENTITIES.getKeys());
+        sorted.sort(Comparator
+                .comparing(ResourceLocation::getNamespace)
+                .thenComparing(ResourceLocation::getPath));
+
+        EntityCatalog catalog = new EntityCatalog(sorted.toArray(new ResourceLocation[0]));
+        for (int i = 0; i < catalog.ids.length; i++) {
+            ResourceLocation id = catalog.ids[i];
+            catalog.indices.put(id, i);
+            catalog.health[i] = Float.NaN;
+
+            catalog.names[i] = resolveName(id);
+
+            EntityType<?> type = ForgeRegistries.ENTITIES.getValue(id);
+            if (type == null) {
+                catalog.category[i] = (byte) MobCategory.MISC.ordinal();
+                continue;
+            }
+
+            catalog.category[i] = (byte) type.getCategory().ordinal();
+            EntityDimensions dimensions = type.getDimensions();
+            catalog.width[i] = dimensions.width;
+            catalog.height[i] = dimensions.height;
+            if (DefaultAttributes.hasSupplier(type)) {
+                catalog.flags[i] |= FLAG_HAS_ATTRIBUTES;
+                AttributeSupplier attributes = DefaultAttributes.getSupplier((EntityType<? extends LivingEntity>) type);
+                if (attributes.hasAttribute(Attributes.MAX_HEALTH)) {
+                    catalog.health[i] = (float) attributes.getBaseValue(Attributes.MAX_HEALTH);
+                }
+            }
+        }
+        return catalog;
+    }
+
+    private static String resolveName(ResourceLocation id) {
+        EntityType<?> type = ForgeRegistries.ENTITIES.getValue(id);
+        return (type == null ? id.getPath() : type.getDescription().getString()).intern();
+    }
+
+    /**
+     * Re-resolves display names after a resource reload, which is also how a language change
+     * is applied. Names are looked up on a background thread and swapped in on the client thread;
+     * other columns are untouched.
+     */
+    public static void onResourcesReloaded() {
+        EntityCatalog catalog = instance;
+        if (catalog == null) {
+            return;
+        }
+
+        int refresh = ++catalog.pendingNameRefresh;
+        CompletableFuture.supplyAsync(() -> {
+            String[] names = new String[catalog.ids.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = resolveName(catalog.ids[i]);
+            }
+            return names;
+        }, Util.backgroundExecutor()).thenAcceptAsync(names -> {
+            // A later reload supersedes this one.
+            if (refresh != catalog.pendingNameRefresh) {
+                return;
+            }
+            System.arraycopy(names, 0, catalog.names, 0, names.length);
+            catalog.nameGeneration++;
+            if (LivingTypeClassifier.get().isComplete()) {
+                ClassificationCache.get().save(catalog);
+            }
+        }, Minecraft.getInstance());
+    }
+
+    /**
+     * Forgets every drop list. Loot tables come from the world's data packs, so they are re-read
+     * lazily after a world switch.
+     */
+    public static void onWorldUnloaded() {
+        LootTableParser.clearCache();
+        EntityCatalog catalog = instance;
+        if (catalog != null) {
+            catalog.clearDrops();
+        }
+    }
+
+    /**
+     * Forgets every drop list, so the next request reads it again. Also called when a new
+     * {@link LootIndex} snapshot replaces drops read from the previous resources.
+     */
+    void clearDrops() {
+        for (int i = 0; i < ids.length; i++) {
+            flags[i] &= ~FLAG_DROPS_LOADED;
+            drops[i] = null;
+            lowercaseDrops[i] = null;
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Incremented whenever the name column is replaced, so name-derived indices know to rebuild.
+     */
+    public int nameGeneration() {
+        return nameGeneration;
+    }
+
+    /**
+     * @return the dense index of the type, or -1 if it is not registered
+     */
+    public int indexOf(ResourceLocation id) {
+        return indices.getInt(id);
+    }
+
+    public ResourceLocation id(int index) {
+        return ids[index];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public void setName(int index, String name) {
+        names[index] = name.intern();
+    }
+
+    public MobCategory category(int index) {
+        return CATEGORIES[category[index]];
+    }
+
+    public float width(int index) {
+        return width[index];
+    }
+
+    public float height(int index) {
+        return height[index];
+    }
+
+    /**
+     * Default max health, or {@code NaN} if the type has no attributes.
+     */
+    public float health(int index) {
+        return health[index];
+    }
+
+    public boolean hasAttributes(int index) {
+        return (flags[index] & FLAG_HAS_ATTRIBUTES) != 0;
+    }
+
+    public boolean isClassified(int index) {
+        return (flags[index] & FLAG_CLASSIFIED) != 0;
+    }
+
+    /**
+     * Whether the type is known to be living; false until it has been classified.
+     */
+    public boolean isLiving(int index) {
+        return (flags[index] & FLAG_LIVING) != 0;
+    }
+
+    public void setLiving(int index, boolean isLiving) {
+        int cleared = (flags[index] | FLAG_CLASSIFIED) & ~(FLAG_LIVING | FLAG_CONSTRUCTION_FAILED);
+        flags[index] = (byte) (isLiving ? cleared | FLAG_LIVING : cleared);
+    }
+
+    public boolean isConstructionFailed(int index) {
+        return (flags[index] & FLAG_CONSTRUCTION_FAILED) != 0;
+    }
+
+    /**
+     * Records that the type could not be constructed on the current level. It counts as not
+     * living until {@link #resetFailedClassifications()} allows another attempt.
+     */
+    public void markConstructionFailed(int index) {
+        flags[index] = (byte) ((flags[index] | FLAG_CLASSIFIED | FLAG_CONSTRUCTION_FAILED) & ~FLAG_LIVING);
+    }
+
+    /**
+     * Clears the classification of every type whose construction failed, since a different
+     * level may be able to build it.
+     *
+     * @return the indices that were reset
+     */
+    public IntList resetFailedClassifications() {
+        IntList reset = new IntArrayList();
+        for (int i = 0; i < flags.length; i++) {
+            if ((flags[i] & FLAG_CONSTRUCTION_FAILED) != 0) {
+                flags[i] &= ~(FLAG_CLASSIFIED | FLAG_LIVING | FLAG_CONSTRUCTION_FAILED);
+                reset.add(i);
+            }
+        }
+        return reset;
+    }
+
+    /**
+     * Drop display names, taken from the {@link LootIndex} once it is built and otherwise read from
+     * the loot table on first request. Null means drops cannot be read (no integrated server);
+     * that answer is remembered like any other.
+     */
+    @Nullable
+    public List<String> drops(int index) {
+        if ((flags[index] & FLAG_DROPS_LOADED) == 0) {
+            LootIndex.Snapshot loot = LootIndex.get().snapshot(this);
+            setDrops(index, loot != null ? loot.dropNames(index) : LootTableParser.getDrops(ids[index]));
+        }
+        return drops[index];
+    }
+
+    /**
+     * Lowercased drop names if the loot table has already been read, without reading it.
+     */
+    @Nullable
+    public String[] cachedDrops(int index) {
+        return lowercaseDrops[index];
+    }
+
+    private void setDrops(int index, @Nullable List<String> itemNames) {
+        flags[index] |= FLAG_DROPS_LOADED;
+        drops[index] = itemNames;
+        if (itemNames == null) {
+            lowercaseDrops[index] = null;
+            return;
+        }
+        String[] lowered = new String[itemNames.size()];
+        for (int i = 0; i < lowered.length; i++) {
+            lowered[i] = itemNames.get(i).toLowerCase(Locale.ROOT);
+        }
+        lowercaseDrops[index] = lowered;
+    }
+}
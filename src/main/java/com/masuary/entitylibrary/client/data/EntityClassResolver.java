@@ -0,0 +1,169 @@
+package com.masuary.entitylibrary.client.data;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.entity.EntityRenderer;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.ai.attributes.DefaultAttributes;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Decides whether an entity type is living from class hierarchy data alone, without calling
+ * its constructor. Three sources are consulted, most exact first:
+ * <ol>
+ *     <li>the generic signature of vanilla's {@code EntityType} constants, e.g. {@code EntityType<Zombie>}</li>
+ *     <li>the default attribute registry, which only accepts living types</li>
+ *     <li>the type parameter of the registered {@link EntityRenderer}</li>
+ * </ol>
+ * Types none of these can decide are left for {@link LivingTypeClassifier} to construct.
+ */
+public final class EntityClassResolver {
+    @Nullable
+    private static Map<EntityType<?>, Class<?>> vanillaClasses;
+
+    private EntityClassResolver() {}
+
+    /**
+     * @return whether the type is living, or null if the class hierarchy does not tell
+     */
+    @Nullable
+    public static Boolean isLiving(EntityType<?> type) {
+        Class<?> entityClass = vanillaClasses().get(type);
+        if (entityClass != null) {
+            return LivingEntity.class.isAssignableFrom(entityClass);
+        }
+
+        if (DefaultAttributes.hasSupplier(type)) {
+            return true;
+        }
+
+        EntityRenderer<?> renderer = Minecraft.getInstance().getEntityRenderDispatcher().renderers.get(type);
+        if (renderer == null) {
+            return null;
+        }
+        Type bound = resolveEntityParameter(renderer.getClass());
+        return bound == null ? null : fromBound(bound);
+    }
+
+    /**
+     * Living if the bound is a LivingEntity subtype, not living if it is a class on a separate
+     * branch of the hierarchy (projectiles, items, vehicles...). Bounds above LivingEntity,
+     * such as {@code Entity}, and interfaces stay undecided.
+     */
+    @Nullable
+    private static Boolean fromBound(Type bound) {
+        if (bound instanceof Class<?> clazz) {
+            if (LivingEntity.class.isAssignableFrom(clazz)) {
+                return true;
+            }
+            if (!clazz.isInterface() && !clazz.isAssignableFrom(LivingEntity.class)) {
+                return false;
+            }
+            return null;
+        }
+        if (bound instanceof ParameterizedType parameterized) {
+            return fromBound(parameterized.getRawType());
+        }
+
+        Type[] bounds;
+        if (bound instanceof TypeVariable<?> variable) {
+            bounds = variable.getBounds();
+        } else if (bound instanceof WildcardType wildcard) {
+            bounds = wildcard.getUpperBounds();
+        } else {
+            return null;
+        }
+
+        // An intersection bound such as <T extends LivingEntity & IAnimatable> is living if any part is.
+        Boolean result = null;
+        for (Type part : bounds) {
+            Boolean partResult = fromBound(part);
+            if (Boolean.TRUE.equals(partResult)) {
+                return true;
+            }
+            if (partResult != null) {
+                result = partResult;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Walks up from a renderer class to {@link EntityRenderer}, substituting type variables on the
+     * way, and returns what its entity parameter resolves to.
+     */
+    @Nullable
+    private static Type resolveEntityParameter(Class<?> rendererClass) {
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+        Class<?> current = rendererClass;
+        while (current != null && current != EntityRenderer.class) {
+            Type superType = current.getGenericSuperclass();
+            if (superType instanceof ParameterizedType parameterized) {
+                Class<?> raw = (Class<?>) parameterized.getRawType();
+                TypeVariable<?>[] variables = raw.getTypeParameters();
+                Type[] arguments = parameterized.getActualTypeArguments();
+                for (int i = 0; i < variables.length && i < arguments.length; i++) {
+                    bindings.put(variables[i], substitute(arguments[i], bindings));
+                }
+                current = raw;
+            } else {
+                current = current.getSuperclass();
+            }
+        }
+        if (current == null) {
+            return null;
+        }
+
+        TypeVariable<?>[] parameters = EntityRenderer.class.getTypeParameters();
+        return parameters.length == 0 ? null : bindings.getOrDefault(parameters[0], parameters[0]);
+    }
+
+    private static Type substitute(Type type, Map<TypeVariable<?>, Type> bindings) {
+        if (type instanceof TypeVariable<?> variable) {
+            return bindings.getOrDefault(variable, variable);
+        }
+        if (type instanceof GenericArrayType) {
+            return Object.class;
+        }
+        return type;
+    }
+
+    private static Map<EntityType<?>, Class<?>> vanillaClasses() {
+        if (vanillaClasses != null) {
+            return vanillaClasses;
+        }
+
+        Map<EntityType<?>, Class<?>> classes = new IdentityHashMap<>();
+        for (Field field : EntityType.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || field.getType() != EntityType.class
+                    || !(field.getGenericType() instanceof ParameterizedType parameterized)) {
+                continue;
+            }
+            Type argument = parameterized.getActualTypeArguments()[0];
+            if (argument instanceof ParameterizedType nested) {
+                argument = nested.getRawType();
+            }
+            if (!(argument instanceof Class<?> entityClass)) {
+                continue;
+            }
+            try {
+                classes.put((EntityType<?>) field.get(null), entityClass);
+            } catch (IllegalAccessException ignored) {
+                // Every constant is public; skip anything a patch made inaccessible.
+            }
+        }
+        vanillaClasses = classes;
+        return classes;
+    }
+}
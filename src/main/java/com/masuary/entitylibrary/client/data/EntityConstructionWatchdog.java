@@ -0,0 +1,250 @@
+package com.masuary.entitylibrary.client.data;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Guards every client-side {@code EntityType.create} call. Each construction is timed and its
+ * allocation measured with the thread allocation counter. A construction over the configured
+ * budget counts a strike against the type and one within it takes a strike away, so a single
+ * slow sample such as a cold class load is forgiven. Types that reach the strike limit are
+ * quarantined in {@code construction_watchdog.json} and not constructed again until released.
+ * A ranked report of the slowest types is written to {@code construction_report.txt}.
+ */
+public final class EntityConstructionWatchdog {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final EntityConstructionWatchdog INSTANCE = new EntityConstructionWatchdog();
+
+    private static final long DEFAULT_TIME_BUDGET_MS = 50L;
+    private static final long DEFAULT_ALLOCATION_BUDGET_MB = 64L;
+    private static final int DEFAULT_STRIKE_LIMIT = 3;
+    private static final int REPORT_LIMIT = 50;
+
+    private final Set<ResourceLocation> quarantined = new HashSet<>();
+    private final Object2IntMap<ResourceLocation> strikes = new Object2IntOpenHashMap<>();
+    private final Map<ResourceLocation, Stats> stats = new HashMap<>();
+    @Nullable
+    private final com.sun.management.ThreadMXBean allocationCounter;
+    private long timeBudgetMs = DEFAULT_TIME_BUDGET_MS;
+    private long allocationBudgetMb = DEFAULT_ALLOCATION_BUDGET_MB;
+    private int strikeLimit = DEFAULT_STRIKE_LIMIT;
+
+    private static final class Stats {
+        int constructions;
+        long totalNanos;
+        long maxNanos;
+        long maxBytes = -1L;
+    }
+
+    private EntityConstructionWatchdog() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean counter = null;
+        if (threads instanceof com.sun.management.ThreadMXBean sunThreads && sunThreads.isThreadAllocatedMemorySupported()) {
+            if (!sunThreads.isThreadAllocatedMemoryEnabled()) {
+                sunThreads.setThreadAllocatedMemoryEnabled(true);
+            }
+            counter = sunThreads;
+        }
+        this.allocationCounter = counter;
+    }
+
+    public static EntityConstructionWatchdog get() {
+        return INSTANCE;
+    }
+
+    public boolean isQuarantined(ResourceLocation id) {
+        return quarantined.contains(id);
+    }
+
+    /**
+     * Lifts the type's quarantine and forgets its strikes, so the next request constructs it again.
+     */
+    public void release(ResourceLocation id) {
+        strikes.removeInt(id);
+        if (quarantined.remove(id)) {
+            LOGGER.info("Released entity type {} from quarantine", id);
+            save();
+        }
+    }
+
+    /**
+     * Constructs the entity unless the type is quarantined, recording how long it took and how much
+     * it allocated. Exceptions from the constructor propagate to the caller after being recorded.
+     *
+     * @return the new entity, or null if the type is quarantined or its factory returned null
+     */
+    @Nullable
+    public Entity create(ResourceLocation id, EntityType<?> type, Level level) {
+        if (quarantined.contains(id)) {
+            return null;
+        }
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return type.create(level);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            long bytes = bytesBefore < 0L ? -1L : allocatedBytes() - bytesBefore;
+            record(id, nanos, bytes);
+        }
+    }
+
+    /**
+     * Largest allocation measured while constructing the type, or -1 if it has not been measured.
+     */
+    public long allocatedBytes(ResourceLocation id) {
+        Stats entry = stats.get(id);
+        return entry == null ? -1L : entry.maxBytes;
+    }
+
+    private long allocatedBytes() {
+        return allocationCounter == null ? -1L : allocationCounter.getCurrentThreadAllocatedBytes();
+    }
+
+    private void record(ResourceLocation id, long nanos, long bytes) {
+        Stats entry = stats.computeIfAbsent(id, key -> new Stats());
+        entry.constructions++;
+        entry.totalNanos += nanos;
+        entry.maxNanos = Math.max(entry.maxNanos, nanos);
+        entry.maxBytes = Math.max(entry.maxBytes, bytes);
+
+        boolean overTime = nanos > timeBudgetMs * 1_000_000L;
+        boolean overAllocation = bytes > allocationBudgetMb * 1024L * 1024L;
+        if (!overTime && !overAllocation) {
+            int count = strikes.getInt(id);
+            if (count > 0) {
+                strikes.put(id, count - 1);
+            }
+            return;
+        }
+        int count = strikes.getInt(id) + 1;
+        strikes.put(id, count);
+        if (count >= strikeLimit && quarantined.add(id)) {
+            LOGGER.warn("Quarantined entity type {}: {} constructions over budget, last took {} ms and allocated {} KB",
+                    id, count, nanos / 1_000_000L, bytes < 0L ? "?" : bytes / 1024L);
+            save();
+        }
+    }
+
+    public void load() {
+        Path configFile = getConfigPath();
+        if (!Files.exists(configFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(configFile)) {
+            JsonObject json = GSON.fromJson(reader, JsonObject.class);
+            if (json == null) {
+                return;
+            }
+            if (json.has("timeBudgetMs")) {
+                timeBudgetMs = Math.max(1L, json.get("timeBudgetMs").getAsLong());
+            }
+            if (json.has("allocationBudgetMb")) {
+                allocationBudgetMb = Math.max(1L, json.get("allocationBudgetMb").getAsLong());
+            }
+            if (json.has("strikeLimit")) {
+                strikeLimit = Math.max(1, json.get("strikeLimit").getAsInt());
+            }
+            if (json.has("quarantined")) {
+                quarantined.clear();
+                for (var element : json.getAsJsonArray("quarantined")) {
+                    ResourceLocation id = ResourceLocation.tryParse(element.getAsString());
+                    if (id != null) {
+                        quarantined.add(id);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to load construction watchdog config", e);
+        }
+    }
+
+    private void save() {
+        Path configFile = getConfigPath();
+        try {
+            Files.createDirectories(configFile.getParent());
+            JsonObject json = new JsonObject();
+            json.addProperty("timeBudgetMs", timeBudgetMs);
+            json.addProperty("allocationBudgetMb", allocationBudgetMb);
+            json.addProperty("strikeLimit", strikeLimit);
+            JsonArray array = new JsonArray();
+            for (ResourceLocation id : quarantined) {
+                array.add(id.toString());
+            }
+            json.add("quarantined", array);
+            try (Writer writer = Files.newBufferedWriter(configFile)) {
+                GSON.toJson(json, writer);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save construction watchdog config", e);
+        }
+    }
+
+    /**
+     * Writes the slowest types seen this session, ranked by their worst construction time.
+     */
+    public void writeReport() {
+        if (stats.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<ResourceLocation, Stats>> ranked = new ArrayList<>(stats.entrySet());
+        ranked.sort(Comparator.comparingLong((Map.Entry<ResourceLocation, Stats> entry) -> entry.getValue().maxNanos).reversed());
+
+        Path reportFile = FMLPaths.CONFIGDIR.get().resolve("entitylibrary").resolve("construction_report.txt");
+        try {
+            Files.createDirectories(reportFile.getParent());
+            try (Writer writer = Files.newBufferedWriter(reportFile)) {
+                writer.write(String.format(Locale.ROOT, "%-4s %-48s %6s %10s %10s %12s%n",
+                        "#", "entity", "count", "max ms", "avg ms", "max alloc KB"));
+                for (int i = 0; i < ranked.size() && i < REPORT_LIMIT; i++) {
+                    ResourceLocation id = ranked.get(i).getKey();
+                    Stats entry = ranked.get(i).getValue();
+                    writer.write(String.format(Locale.ROOT, "%-4d %-48s %6d %10.2f %10.2f %12s%s%n",
+                            i + 1, id, entry.constructions,
+                            entry.maxNanos / 1_000_000.0D,
+                            entry.totalNanos / 1_000_000.0D / entry.constructions,
+                            entry.maxBytes < 0L ? "?" : Long.toString(entry.maxBytes / 1024L),
+                            quarantined.contains(id) ? "  QUARANTINED" : ""));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write entity construction report", e);
+        }
+    }
+
+    private static Path getConfigPath() {
+        return FMLPaths.CONFIGDIR.get().resolve("entitylibrary").resolve("construction_watchdog.json");
+    }
+}
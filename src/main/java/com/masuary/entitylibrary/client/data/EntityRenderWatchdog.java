@@ -0,0 +1,152 @@
+package com.masuary.entitylibrary.client.data;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Guards preview rendering the way {@link EntityConstructionWatchdog} guards construction. A type
+ * whose renderer throws is quarantined at once; one that goes over the time budget on several
+ * renders is quarantined once it reaches the strike limit. The quarantine list is kept in
+ * {@code render_watchdog.json} so a broken renderer is skipped in later sessions too.
+ */
+public final class EntityRenderWatchdog {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final EntityRenderWatchdog INSTANCE = new EntityRenderWatchdog();
+
+    private static final long DEFAULT_TIME_BUDGET_MS = 20L;
+    private static final int DEFAULT_STRIKE_LIMIT = 3;
+
+    private final Set<ResourceLocation> quarantined = new HashSet<>();
+    private final Object2IntMap<ResourceLocation> strikes = new Object2IntOpenHashMap<>();
+    private long timeBudgetMs = DEFAULT_TIME_BUDGET_MS;
+    private int strikeLimit = DEFAULT_STRIKE_LIMIT;
+
+    private EntityRenderWatchdog() {}
+
+    public static EntityRenderWatchdog get() {
+        return INSTANCE;
+    }
+
+    public boolean isQuarantined(ResourceLocation id) {
+        return quarantined.contains(id);
+    }
+
+    /**
+     * Lifts the type's quarantine and forgets its strikes, so its renderer is tried again.
+     */
+    public void release(ResourceLocation id) {
+        strikes.removeInt(id);
+        if (quarantined.remove(id)) {
+            LOGGER.info("Released renderer for {} from quarantine", id);
+            save();
+        }
+    }
+
+    /**
+     * Records how long one render of the type took, counting a strike if it went over budget.
+     */
+    public void recordRender(ResourceLocation id, long nanos) {
+        if (nanos <= timeBudgetMs * 1_000_000L) {
+            return;
+        }
+        int count = strikes.getInt(id) + 1;
+        strikes.put(id, count);
+        if (count >= strikeLimit && quarantined.add(id)) {
+            LOGGER.warn("Quarantined renderer for {}: {} renders over {} ms, last took {} ms",
+                    id, count, timeBudgetMs, nanos / 1_000_000L);
+            save();
+        }
+    }
+
+    /**
+     * Counts a strike against a type that may have caused a failure shared with others, such as
+     * a batch flush, without quarantining it outright.
+     */
+    public void recordSuspect(ResourceLocation id, Throwable failure) {
+        int count = strikes.getInt(id) + 1;
+        strikes.put(id, count);
+        if (count >= strikeLimit && quarantined.add(id)) {
+            LOGGER.warn("Quarantined renderer for {} after {} failed batches", id, count, failure);
+            save();
+        }
+    }
+
+    public void recordFailure(ResourceLocation id, Throwable failure) {
+        if (quarantined.add(id)) {
+            LOGGER.warn("Quarantined renderer for {} after it threw", id, failure);
+            save();
+        }
+    }
+
+    public void load() {
+        Path configFile = getConfigPath();
+        if (!Files.exists(configFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(configFile)) {
+            JsonObject json = GSON.fromJson(reader, JsonObject.class);
+            if (json == null) {
+                return;
+            }
+            if (json.has("timeBudgetMs")) {
+                timeBudgetMs = Math.max(1L, json.get("timeBudgetMs").getAsLong());
+            }
+            if (json.has("strikeLimit")) {
+                strikeLimit = Math.max(1, json.get("strikeLimit").getAsInt());
+            }
+            if (json.has("quarantined")) {
+                quarantined.clear();
+                for (var element : json.getAsJsonArray("quarantined")) {
+                    ResourceLocation id = ResourceLocation.tryParse(element.getAsString());
+                    if (id != null) {
+                        quarantined.add(id);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to load render watchdog config", e);
+        }
+    }
+
+    private void save() {
+        Path configFile = getConfigPath();
+        try {
+            Files.createDirectories(configFile.getParent());
+            JsonObject json = new JsonObject();
+            json.addProperty("timeBudgetMs", timeBudgetMs);
+            json.addProperty("strikeLimit", strikeLimit);
+            JsonArray array = new JsonArray();
+            for (ResourceLocation id : quarantined) {
+                array.add(id.toString());
+            }
+            json.add("quarantined", array);
+            try (Writer writer = Files.newBufferedWriter(configFile)) {
+                GSON.toJson(json, writer);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save render watchdog config", e);
+        }
+    }
+
+    private static Path getConfigPath() {
+        return FMLPaths.CONFIGDIR.get().resolve("entitylibrary").resolve("render_watchdog.json");
+    }
+}
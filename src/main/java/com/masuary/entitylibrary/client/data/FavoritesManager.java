@@ -15,7 +15,10 @@ import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 
 public final class FavoritesManager {
     private static final Logger LOGGER = LogManager.getLogger();
@@ -23,6 +26,8 @@ public final class FavoritesManager {
     private static final FavoritesManager INSTANCE = new FavoritesManager();
 
     private final Set<ResourceLocation> favorites = new HashSet<>();
+    private final List<BiConsumer<ResourceLocation, Boolean>> listeners = new CopyOnWriteArrayList<>();
+    private int generation;
 
     private FavoritesManager() {}
 
@@ -34,13 +39,34 @@ public final class FavoritesManager {
         return favorites.contains(id);
     }
 
+    /**
+     * Bumped whenever the favorites set changes, so callers can cache {@link #isFavorite} results.
+     */
+    public int generation() {
+        return generation;
+    }
+
     public void toggle(ResourceLocation id) {
-        if (favorites.contains(id)) {
-            favorites.remove(id);
-        } else {
+        boolean favorite = !favorites.remove(id);
+        if (favorite) {
             favorites.add(id);
         }
+        generation++;
         save();
+        for (BiConsumer<ResourceLocation, Boolean> listener : listeners) {
+            listener.accept(id, favorite);
+        }
+    }
+
+    /**
+     * Registers a callback invoked with the entity ID and its new state after every {@link #toggle}.
+     */
+    public void addListener(BiConsumer<ResourceLocation, Boolean> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BiConsumer<ResourceLocation, Boolean> listener) {
+        listeners.remove(listener);
     }
 
     public Set<ResourceLocation> favorites() {
@@ -64,6 +90,7 @@ public final class FavoritesManager {
                         favorites.add(id);
                     }
                 }
+                generation++;
             }
         } catch (Exception e) {
             LOGGER.warn("Failed to load favorites config", e);
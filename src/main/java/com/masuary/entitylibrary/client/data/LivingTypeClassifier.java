@@ -0,0 +1,191 @@
+package com.masuary.entitylibrary.client.data;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
+
+/**
+ * Works out which entity types are living and records the answer in the {@link EntityCatalog}.
+ * Most are decided up front from class hierarchy data by {@link EntityClassResolver}; the rest
+ * are constructed on the client level. Construction can be slow for modded types, so that work
+ * is spread across client ticks under a fixed time budget instead of happening all at once when
+ * the library opens.
+ */
+public final class LivingTypeClassifier {
+    private static final LivingTypeClassifier INSTANCE = new LivingTypeClassifier();
+    private static final long TICK_BUDGET_NANOS = 2_000_000L;
+
+    private final IntList completed = new IntArrayList();
+    // Indices already in {@code completed}, so restoring the cache again in a later session adds nothing twice.
+    private final BitSet recorded = new BitSet();
+    private final IntArrayFIFOQueue pending = new IntArrayFIFOQueue();
+    private EntityCatalog catalog;
+    private boolean started;
+
+    private LivingTypeClassifier() {}
+
+    public static LivingTypeClassifier get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Restores results persisted by {@link ClassificationCache} for the current mod list, resolves
+     * what it can from class hierarchy data, and queues the remaining types for construction.
+     */
+    public void start() {
+        EntityCatalog current = EntityCatalog.get();
+        if (current != catalog) {
+            catalog = current;
+            completed.clear();
+            recorded.clear();
+        }
+
+        IntList loaded = ClassificationCache.get().load(catalog);
+        for (int i = 0; i < loaded.size(); i++) {
+            record(loaded.getInt(i));
+        }
+        int restored = completed.size();
+        // Failed constructions depend on the level they were tried on, so a new session tries them again.
+        IntList reset = catalog.resetFailedClassifications();
+        for (int i = 0; i < reset.size(); i++) {
+            recorded.clear(reset.getInt(i));
+        }
+
+        pending.clear();
+        for (int index = 0; index < catalog.size(); index++) {
+            if (catalog.isClassified(index)) {
+                continue;
+            }
+            EntityType<?> type = ForgeRegistries.ENTITIES.getValue(catalog.id(index));
+            Boolean resolved = type == null ? Boolean.FALSE : EntityClassResolver.isLiving(type);
+            if (resolved != null) {
+                catalog.setLiving(index, resolved);
+                record(index);
+            } else {
+                pending.enqueue(index);
+            }
+        }
+        started = true;
+
+        if (pending.isEmpty() && completed.size() > restored) {
+            ClassificationCache.get().save(catalog);
+        }
+    }
+
+    public void ensureStarted() {
+        if (!started || catalog != EntityCatalog.get()) {
+            start();
+        }
+    }
+
+    /**
+     * Classifies queued types until the per-tick budget is spent. Must run on the client thread.
+     */
+    public void tick(Level level) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + TICK_BUDGET_NANOS;
+        do {
+            int index = pending.dequeueInt();
+            if (!catalog.isClassified(index)) {
+                Boolean isLiving = classify(catalog.id(index), level);
+                if (isLiving == null) {
+                    catalog.markConstructionFailed(index);
+                } else {
+                    catalog.setLiving(index, isLiving);
+                }
+                record(index);
+            }
+        } while (!pending.isEmpty() && System.nanoTime() < deadline);
+
+        if (pending.isEmpty()) {
+            ClassificationCache.get().save(catalog);
+            EntityConstructionWatchdog.get().writeReport();
+        }
+    }
+
+    /**
+     * @return whether the constructed entity is living, or null if it could not be constructed
+     */
+    @Nullable
+    private static Boolean classify(ResourceLocation id, Level level) {
+        EntityType<?> type = ForgeRegistries.ENTITIES.getValue(id);
+        if (type == null) {
+            return false;
+        }
+
+        try {
+            Entity entity = EntityConstructionWatchdog.get().create(id, type, level);
+            if (entity == null) {
+                return null;
+            }
+            boolean isLiving = entity instanceof LivingEntity;
+            entity.discard();
+            return isLiving;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * Re-queues types whose construction failed, called when a new client level is loaded.
+     * Results that came from class data or a successful construction do not depend on the
+     * level and are kept.
+     */
+    public void retryFailed() {
+        if (catalog == null) {
+            return;
+        }
+        IntList reset = catalog.resetFailedClassifications();
+        for (int i = 0; i < reset.size(); i++) {
+            int index = reset.getInt(i);
+            // Reported again once retried, since the answer may change.
+            recorded.clear(index);
+            pending.enqueue(index);
+        }
+    }
+
+    private void record(int index) {
+        if (!recorded.get(index)) {
+            recorded.set(index);
+            completed.add(index);
+        }
+    }
+
+    /**
+     * Number of types classified so far. {@link #completed(int)} returns their catalog indices in
+     * classification order, so callers can pick up only what is new since they last looked.
+     */
+    public int completedCount() {
+        return completed.size();
+    }
+
+    public int completed(int position) {
+        return completed.getInt(position);
+    }
+
+    /**
+     * @return whether a pass has been started and has classified everything it queued
+     */
+    public boolean isComplete() {
+        return started && pending.isEmpty();
+    }
+
+    /**
+     * Fraction of registered types classified, from 0 to 1.
+     */
+    public float progress() {
+        return catalog == null || catalog.size() == 0 ? 1.0F : 1.0F - (float) pending.size() / catalog.size();
+    }
+}
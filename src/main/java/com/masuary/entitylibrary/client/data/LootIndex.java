@@ -0,0 +1,266 @@
+package com.masuary.entitylibrary.client.data;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.ResourceManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * Every entity's loot resolved in one background pass over the integrated server's resources.
+ * The result is kept as compressed sparse rows: entity index to dense item indices, and the
+ * reverse, item index to the catalog indices of the entities that drop it. Until a pass finishes,
+ * {@link #snapshot} returns null and callers fall back to reading loot tables one at a time.
+ */
+public final class LootIndex {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final LootIndex INSTANCE = new LootIndex();
+
+    @Nullable
+    private volatile Snapshot snapshot;
+    @Nullable
+    private ResourceManager started;
+    private int generation;
+
+    private LootIndex() {}
+
+    public static LootIndex get() {
+        return INSTANCE;
+    }
+
+    /**
+     * The finished index for the catalog, or null if none has been built for it yet.
+     */
+    @Nullable
+    public Snapshot snapshot(EntityCatalog catalog) {
+        Snapshot current = this.snapshot;
+        return current != null && current.catalog == catalog ? current : null;
+    }
+
+    /**
+     * Whether a pass has already been started for these resources. A data pack reload swaps the
+     * server's resource manager, so this turns false until {@link #update} is called again.
+     */
+    public boolean isCurrent(ResourceManager resourceManager) {
+        return resourceManager == this.started;
+    }
+
+    /**
+     * Starts a pass unless one has already been started for these resources.
+     */
+    public void update(EntityCatalog catalog, ResourceManager resourceManager) {
+        if (isCurrent(resourceManager)) {
+            return;
+        }
+        this.started = resourceManager;
+        int pass = ++this.generation;
+        long start = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> build(catalog, resourceManager), Util.backgroundExecutor())
+                .thenAcceptAsync(built -> {
+                    // A later pass or a logout supersedes this one.
+                    if (pass != this.generation) {
+                        return;
+                    }
+                    this.snapshot = built;
+                    // Drops read before this pass finished may come from the previous resources.
+                    catalog.clearDrops();
+                    LOGGER.debug("Indexed loot of {} entities ({} items) in {} ms",
+                            catalog.size(), built.itemCount(), (System.nanoTime() - start) / 1_000_000L);
+                }, Minecraft.getInstance())
+                .exceptionally(t -> {
+                    LOGGER.warn("Failed to index loot tables", t);
+                    return null;
+                });
+    }
+
+    public void clear() {
+        this.generation++;
+        this.started = null;
+        this.snapshot = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Snapshot build(EntityCatalog catalog, ResourceManager resourceManager) {
+        LootTableResolver resolver = new LootTableResolver(resourceManager);
+        int entityCount = catalog.size();
+        List<ResourceLocation>[] resolved = (List<ResourceLocation>[]) new List<?>[entityCount];
+        // Runs on the background executor's pool, which the parallel stream then shares.
+        IntStream.range(0, entityCount).parallel()
+                .forEach(index -> resolved[index] = resolver.resolveEntity(catalog.id(index)));
+
+        Object2IntMap<ResourceLocation> itemIndices = new Object2IntOpenHashMap<>();
+        itemIndices.defaultReturnValue(-1);
+        List<ResourceLocation> items = new ArrayList<>();
+        int[] entityOffsets = new int[entityCount + 1];
+        IntArrayList entityItems = new IntArrayList();
+        for (int index = 0; index < entityCount; index++) {
+            for (ResourceLocation itemId : resolved[index]) {
+                int item = itemIndices.getInt(itemId);
+                if (item < 0) {
+                    item = items.size();
+                    itemIndices.put(itemId, item);
+                    items.add(itemId);
+                }
+                entityItems.add(item);
+            }
+            entityOffsets[index + 1] = entityItems.size();
+        }
+
+        int itemCount = items.size();
+        int[] itemOffsets = new int[itemCount + 1];
+        int[] drops = entityItems.toIntArray();
+        for (int item : drops) {
+            itemOffsets[item + 1]++;
+        }
+        for (int item = 0; item < itemCount; item++) {
+            itemOffsets[item + 1] += itemOffsets[item];
+        }
+        // Entities are visited in index order, so each item's row comes out sorted.
+        int[] itemEntities = new int[drops.length];
+        int[] cursor = itemOffsets.clone();
+        for (int index = 0; index < entityCount; index++) {
+            for (int i = entityOffsets[index]; i < entityOffsets[index + 1]; i++) {
+                itemEntities[cursor[drops[i]]++] = index;
+            }
+        }
+
+        return new Snapshot(catalog, items.toArray(new ResourceLocation[0]), itemIndices,
+                entityOffsets, drops, itemOffsets, itemEntities);
+    }
+
+    public static final class Snapshot {
+        private final EntityCatalog catalog;
+        private final ResourceLocation[] items;
+        private final Object2IntMap<ResourceLocation> itemIndices;
+        private final int[] entityOffsets;
+        private final int[] entityItems;
+        private final int[] itemOffsets;
+        private final int[] itemEntities;
+
+        // Item names for {@code drops:} matching, filled on the client thread for the catalog's language.
+        @Nullable
+        private String[] lowercaseNames;
+        private int namesGeneration = -1;
+
+        private Snapshot(EntityCatalog catalog, ResourceLocation[] items, Object2IntMap<ResourceLocation> itemIndices,
+                         int[] entityOffsets, int[] entityItems, int[] itemOffsets, int[] itemEntities) {
+            this.catalog = catalog;
+            this.items = items;
+            this.itemIndices = itemIndices;
+            this.entityOffsets = entityOffsets;
+            this.entityItems = entityItems;
+            this.itemOffsets = itemOffsets;
+            this.itemEntities = itemEntities;
+        }
+
+        public int itemCount() {
+            return items.length;
+        }
+
+        public ResourceLocation item(int item) {
+            return items[item];
+        }
+
+        /**
+         * @return the dense index of the item, or -1 if no entity drops it
+         */
+        public int itemIndexOf(ResourceLocation itemId) {
+            return itemIndices.getInt(itemId);
+        }
+
+        public int dropCount(int entityIndex) {
+            return entityOffsets[entityIndex + 1] - entityOffsets[entityIndex];
+        }
+
+        /**
+         * @return the {@code n}th item index dropped by the entity
+         */
+        public int drop(int entityIndex, int n) {
+            return entityItems[entityOffsets[entityIndex] + n];
+        }
+
+        public int droppedByCount(int item) {
+            return itemOffsets[item + 1] - itemOffsets[item];
+        }
+
+        /**
+         * @return the catalog index of the {@code n}th entity dropping the item, in catalog order
+         */
+        public int droppedBy(int item, int n) {
+            return itemEntities[itemOffsets[item] + n];
+        }
+
+        /**
+         * Drop display names of the entity, in loot table order without duplicates.
+         */
+        public List<String> dropNames(int entityIndex) {
+            Set<String> names = new LinkedHashSet<>();
+            for (int i = entityOffsets[entityIndex]; i < entityOffsets[entityIndex + 1]; i++) {
+                names.add(LootTableParser.itemDisplayName(items[entityItems[i]]));
+            }
+            return new ArrayList<>(names);
+        }
+
+        /**
+         * Entities dropping any item whose display name contains {@code needle}, or, for a needle
+         * with a colon, the item with exactly that ID.
+         */
+        public BitSet entitiesDropping(String needle) {
+            BitSet matches = new BitSet(catalog.size());
+            if (needle.indexOf(':') >= 0) {
+                ResourceLocation itemId = ResourceLocation.tryParse(needle);
+                int item = itemId == null ? -1 : itemIndexOf(itemId);
+                if (item >= 0) {
+                    markDroppers(item, matches);
+                }
+                return matches;
+            }
+            String[] names = lowercaseNames();
+            for (int item = 0; item < names.length; item++) {
+                if (names[item].contains(needle)) {
+                    markDroppers(item, matches);
+                }
+            }
+            return matches;
+        }
+
+        private void markDroppers(int item, BitSet matches) {
+            for (int i = itemOffsets[item]; i < itemOffsets[item + 1]; i++) {
+                matches.set(itemEntities[i]);
+            }
+        }
+
+        /**
+         * Lowercased display names by item index, rebuilt after a language change.
+         */
+        public String[] lowercaseNames() {
+            if (lowercaseNames == null || namesGeneration != catalog.nameGeneration()) {
+                String[] names = new String[items.length];
+                for (int item = 0; item < names.length; item++) {
+                    names[item] = itemName(item).toLowerCase(Locale.ROOT);
+                }
+                lowercaseNames = names;
+                namesGeneration = catalog.nameGeneration();
+            }
+            return lowercaseNames;
+        }
+
+        public String itemName(int item) {
+            return LootTableParser.itemDisplayName(items[item]);
+        }
+    }
+}
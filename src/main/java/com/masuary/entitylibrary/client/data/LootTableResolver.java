@@ -0,0 +1,162 @@
+package com.masuary.entitylibrary.client.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.world.entity.EntityType;
+import net.minecraftforge.registries.ForgeRegistries;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves loot tables to the item IDs they can drop, memoized by loot table ID. A table pulled
+ * in through {@code minecraft:loot_table} entries is read once and its result shared by every
+ * table that references it. References that loop back onto a table still being resolved are
+ * logged and cut, so a cyclic data pack cannot recurse forever.
+ */
+public final class LootTableResolver {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Gson GSON = new Gson();
+    private static final ResourceLocation EMPTY_TABLE = new ResourceLocation("minecraft", "empty");
+
+    private final ResourceManager resourceManager;
+    private final Map<ResourceLocation, List<ResourceLocation>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * The tables currently being resolved on one call, outermost first. {@code cycleDepth} is the
+     * shallowest of them that a reference looped back to.
+     */
+    private static final class Walk {
+        final List<ResourceLocation> path = new ArrayList<>();
+        int cycleDepth = Integer.MAX_VALUE;
+    }
+
+    public LootTableResolver(ResourceManager resourceManager) {
+        this.resourceManager = resourceManager;
+    }
+
+    public ResourceManager resourceManager() {
+        return resourceManager;
+    }
+
+    /**
+     * Items in the entity type's default loot table.
+     */
+    public List<ResourceLocation> resolveEntity(ResourceLocation entityId) {
+        EntityType<?> type = ForgeRegistries.ENTITIES.getValue(entityId);
+        if (type == null) {
+            return List.of();
+        }
+        return resolve(type.getDefaultLootTable());
+    }
+
+    public List<ResourceLocation> resolve(ResourceLocation tableId) {
+        return resolve(tableId, new Walk());
+    }
+
+    private List<ResourceLocation> resolve(ResourceLocation tableId, Walk walk) {
+        if (tableId.equals(EMPTY_TABLE)) {
+            return List.of();
+        }
+        List<ResourceLocation> cached = resolved.get(tableId);
+        if (cached != null) {
+            return cached;
+        }
+
+        int loopsTo = walk.path.indexOf(tableId);
+        if (loopsTo >= 0) {
+            LOGGER.warn("Loot table {} references itself through {}; ignoring the reference",
+                    tableId, walk.path.subList(loopsTo, walk.path.size()));
+            walk.cycleDepth = Math.min(walk.cycleDepth, loopsTo);
+            return List.of();
+        }
+
+        int depth = walk.path.size();
+        int outerCycleDepth = walk.cycleDepth;
+        walk.path.add(tableId);
+        walk.cycleDepth = Integer.MAX_VALUE;
+        Set<ResourceLocation> items = new LinkedHashSet<>();
+        try {
+            readTable(tableId, items, walk);
+        } finally {
+            walk.path.remove(depth);
+        }
+
+        List<ResourceLocation> result = List.copyOf(items);
+        // A table cut short by a loop through one of its callers is missing their items, so only
+        // remember it once resolved from the top of that loop.
+        if (walk.cycleDepth >= depth) {
+            List<ResourceLocation> previous = resolved.putIfAbsent(tableId, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        walk.cycleDepth = Math.min(outerCycleDepth, walk.cycleDepth);
+        return result;
+    }
+
+    private void readTable(ResourceLocation tableId, Set<ResourceLocation> items, Walk walk) {
+        ResourceLocation jsonPath = new ResourceLocation(tableId.getNamespace(), "loot_tables/" + tableId.getPath() + ".json");
+        try (Resource resource = resourceManager.getResource(jsonPath);
+             Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            JsonObject root = GSON.fromJson(reader, JsonObject.class);
+            if (root != null && root.has("pools")) {
+                for (JsonElement poolElement : root.getAsJsonArray("pools")) {
+                    readPool(poolElement.getAsJsonObject(), items, walk);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read loot table {}: {}", tableId, e.getMessage());
+        }
+    }
+
+    private void readPool(JsonObject pool, Set<ResourceLocation> items, Walk walk) {
+        if (!pool.has("entries")) {
+            return;
+        }
+        for (JsonElement entryElement : pool.getAsJsonArray("entries")) {
+            readEntry(entryElement.getAsJsonObject(), items, walk);
+        }
+    }
+
+    private void readEntry(JsonObject entry, Set<ResourceLocation> items, Walk walk) {
+        String type = entry.has("type") ? entry.get("type").getAsString() : "";
+
+        if ("minecraft:item".equals(type)) {
+            if (entry.has("name")) {
+                ResourceLocation itemId = ResourceLocation.tryParse(entry.get("name").getAsString());
+                if (itemId != null) {
+                    items.add(itemId);
+                }
+            }
+        } else if ("minecraft:loot_table".equals(type)) {
+            if (entry.has("name")) {
+                ResourceLocation refId = ResourceLocation.tryParse(entry.get("name").getAsString());
+                if (refId != null) {
+                    items.addAll(resolve(refId, walk));
+                }
+            }
+        } else if ("minecraft:alternatives".equals(type) || "minecraft:sequence".equals(type) || "minecraft:group".equals(type)) {
+            if (entry.has("children")) {
+                JsonArray children = entry.getAsJsonArray("children");
+                for (JsonElement child : children) {
+                    readEntry(child.getAsJsonObject(), items, walk);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.masuary.entitylibrary.client.data;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.Level;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used pool of constructed preview entities, so flipping back to a type shown
+ * recently does not construct it again. Bounded both by entry count and by an estimate of the
+ * memory the entities hold, taken from the allocation {@link EntityConstructionWatchdog} measured
+ * while constructing them. Evicted entities are discarded.
+ */
+public final class PreviewEntityPool {
+    private static final PreviewEntityPool INSTANCE = new PreviewEntityPool();
+    private static final int MAX_ENTRIES = 24;
+    private static final long MAX_BYTES = 48L * 1024L * 1024L;
+    private static final long DEFAULT_ENTRY_BYTES = 256L * 1024L;
+
+    private final LinkedHashMap<ResourceLocation, PooledEntity> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private long totalBytes;
+    private int reservedEntries;
+    private long hits;
+    private long misses;
+
+    private record PooledEntity(Entity entity, long bytes) {}
+
+    private PreviewEntityPool() {}
+
+    public static PreviewEntityPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the pooled entity for the type, or null if there is none for this level
+     */
+    @Nullable
+    public Entity get(ResourceLocation id, Level level) {
+        PooledEntity pooled = entries.get(id);
+        if (pooled != null && pooled.entity().level == level) {
+            hits++;
+            return pooled.entity();
+        }
+        if (pooled != null) {
+            remove(id);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Returns the pooled entity for the type, constructing and pooling a new one on a miss.
+     * Construction exceptions propagate to the caller.
+     *
+     * @return the entity, or null if the type is unknown, quarantined or its factory returned null
+     */
+    @Nullable
+    public Entity obtain(ResourceLocation id, Level level) {
+        Entity pooled = get(id, level);
+        if (pooled != null) {
+            return pooled;
+        }
+
+        Entity entity = create(id, level);
+        if (entity != null) {
+            put(id, entity);
+        }
+        return entity;
+    }
+
+    /**
+     * Constructs a preview entity without pooling it, for one-off renders that must not evict
+     * the entities the library is showing. The caller discards it when done.
+     *
+     * @return the entity, or null if the type is unknown, quarantined or its factory returned null
+     */
+    @Nullable
+    public Entity create(ResourceLocation id, Level level) {
+        EntityType<?> type = ForgeRegistries.ENTITIES.getValue(id);
+        Entity entity = type == null ? null : EntityConstructionWatchdog.get().create(id, type, level);
+        if (entity == null) {
+            return null;
+        }
+
+        try {
+            entity.setPos(0.0D, 0.0D, 0.0D);
+            entity.setSilent(true);
+            entity.setInvulnerable(true);
+            if (entity instanceof Mob mob) {
+                mob.setNoAi(true);
+            }
+        } catch (Throwable t) {
+            entity.discard();
+            throw t;
+        }
+        return entity;
+    }
+
+    public boolean contains(ResourceLocation id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Adds a freshly constructed entity as the most recently used entry, evicting older ones
+     * until the pool is back within its limits.
+     */
+    public void put(ResourceLocation id, Entity entity) {
+        remove(id);
+        long measured = EntityConstructionWatchdog.get().allocatedBytes(id);
+        long bytes = measured > 0L ? measured : DEFAULT_ENTRY_BYTES;
+        entries.put(id, new PooledEntity(entity, bytes));
+        totalBytes += bytes;
+        trim();
+    }
+
+    /**
+     * Keeps at least this many entries for views that show many entities at once, as far as the
+     * memory cap allows at the pool's current average entry size. Zero restores the normal limits.
+     *
+     * @return how many entries were actually reserved
+     */
+    public int reserve(int entries) {
+        long averageBytes = this.entries.isEmpty() ? DEFAULT_ENTRY_BYTES : Math.max(1L, totalBytes / this.entries.size());
+        int fitting = (int) Math.min(Integer.MAX_VALUE, MAX_BYTES / averageBytes);
+        reservedEntries = Math.max(0, Math.min(entries, fitting));
+        trim();
+        return reservedEntries;
+    }
+
+    private void trim() {
+        // The newest entry is always kept, even if it alone is over the memory cap.
+        Iterator<Map.Entry<ResourceLocation, PooledEntity>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > Math.max(MAX_ENTRIES, reservedEntries)
+                || (totalBytes > MAX_BYTES && entries.size() > reservedEntries)) && entries.size() > 1) {
+            PooledEntity evicted = eldest.next().getValue();
+            eldest.remove();
+            totalBytes -= evicted.bytes();
+            evicted.entity().discard();
+        }
+    }
+
+    private void remove(ResourceLocation id) {
+        PooledEntity removed = entries.remove(id);
+        if (removed != null) {
+            totalBytes -= removed.bytes();
+            removed.entity().discard();
+        }
+    }
+
+    /**
+     * Discards every pooled entity. Called when the library closes and when the client level changes.
+     */
+    public void clear() {
+        for (PooledEntity pooled : entries.values()) {
+            pooled.entity().discard();
+        }
+        entries.clear();
+        totalBytes = 0L;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long estimatedBytes() {
+        return totalBytes;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,181 @@
+package com.masuary.entitylibrary.client.screen;
+
+import com.masuary.entitylibrary.client.data.Theme;
+import com.mojang.blaze3d.vertex.PoseStack;
+import net.minecraft.client.gui.Font;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-truncated text lines, button positions and the preview area of the library's detail panel.
+ * Built when something it depends on changes and then drawn as-is every frame, so the per-frame
+ * path does no string work. {@link #isFor} tells the screen whether the layout is still current.
+ */
+final class DetailPanelLayout {
+    private record Line(String text, float x, float y, int color, boolean shadow) {}
+
+    @Nullable
+    private final ResourceLocation selectedId;
+    @Nullable
+    private final Entity previewEntity;
+    @Nullable
+    private final Component previewError;
+    private final Theme theme;
+    private final int nameGeneration;
+
+    private final Line[] lines;
+    final String fallbackNotice;
+
+    final int favoriteX;
+    final int favoriteY;
+    final int copyX;
+    final int copyY;
+    final int nbtX;
+    final int nbtY;
+
+    /** Whether a live preview goes in the preview area; false when there is an error or nothing to show. */
+    final boolean showPreview;
+    final int previewCenterX;
+    final int previewBaseY;
+    final int previewAreaTop;
+    final int previewAreaBottom;
+
+    private DetailPanelLayout(Builder builder) {
+        this.selectedId = builder.selectedId;
+        this.previewEntity = builder.previewEntity;
+        this.previewError = builder.previewError;
+        this.theme = builder.theme;
+        this.nameGeneration = builder.nameGeneration;
+        this.lines = builder.lines.toArray(new Line[0]);
+        this.fallbackNotice = builder.fallbackNotice;
+        this.favoriteX = builder.favoriteX;
+        this.favoriteY = builder.favoriteY;
+        this.copyX = builder.copyX;
+        this.copyY = builder.copyY;
+        this.nbtX = builder.nbtX;
+        this.nbtY = builder.nbtY;
+        this.showPreview = builder.showPreview;
+        this.previewCenterX = builder.previewCenterX;
+        this.previewBaseY = builder.previewBaseY;
+        this.previewAreaTop = builder.previewAreaTop;
+        this.previewAreaBottom = builder.previewAreaBottom;
+    }
+
+    /**
+     * Whether this layout was built for the given state. Compares references only, so it is free
+     * to call every frame.
+     */
+    boolean isFor(@Nullable ResourceLocation selectedId, @Nullable Entity previewEntity, @Nullable Component previewError,
+                  Theme theme, int nameGeneration) {
+        return this.selectedId == selectedId && this.previewEntity == previewEntity && this.previewError == previewError
+                && this.theme == theme && this.nameGeneration == nameGeneration;
+    }
+
+    void draw(PoseStack poseStack, Font font) {
+        for (Line line : lines) {
+            if (line.shadow()) {
+                font.drawShadow(poseStack, line.text(), line.x(), line.y(), line.color());
+            } else {
+                font.draw(poseStack, line.text(), line.x(), line.y(), line.color());
+            }
+        }
+    }
+
+    static final class Builder {
+        private final Font font;
+        @Nullable
+        private final ResourceLocation selectedId;
+        @Nullable
+        private final Entity previewEntity;
+        @Nullable
+        private final Component previewError;
+        private final Theme theme;
+        private final int nameGeneration;
+        private final List<Line> lines = new ArrayList<>();
+        private String fallbackNotice = "";
+
+        private int favoriteX;
+        private int favoriteY;
+        private int copyX;
+        private int copyY;
+        private int nbtX;
+        private int nbtY;
+        private boolean showPreview;
+        private int previewCenterX;
+        private int previewBaseY;
+        private int previewAreaTop;
+        private int previewAreaBottom;
+
+        Builder(Font font, @Nullable ResourceLocation selectedId, @Nullable Entity previewEntity, @Nullable Component previewError,
+                Theme theme, int nameGeneration) {
+            this.font = font;
+            this.selectedId = selectedId;
+            this.previewEntity = previewEntity;
+            this.previewError = previewError;
+            this.theme = theme;
+            this.nameGeneration = nameGeneration;
+        }
+
+        /**
+         * Adds a line cut to fit {@code maxWidth}.
+         */
+        Builder text(String text, int x, int y, int maxWidth, int color) {
+            lines.add(new Line(font.plainSubstrByWidth(text, maxWidth), x, y, color, false));
+            return this;
+        }
+
+        Builder shadowedText(String text, int x, int y, int maxWidth, int color) {
+            lines.add(new Line(font.plainSubstrByWidth(text, maxWidth), x, y, color, true));
+            return this;
+        }
+
+        Builder centeredText(String text, int centerX, int y, int color) {
+            lines.add(new Line(text, centerX - font.width(text) / 2, y, color, false));
+            return this;
+        }
+
+        /**
+         * Text shown in place of the preview when its renderer is quarantined and no thumbnail exists.
+         */
+        Builder fallbackNotice(String text, int maxWidth) {
+            fallbackNotice = font.plainSubstrByWidth(text, maxWidth);
+            return this;
+        }
+
+        Builder favoriteButton(int x, int y) {
+            favoriteX = x;
+            favoriteY = y;
+            return this;
+        }
+
+        Builder copyButton(int x, int y) {
+            copyX = x;
+            copyY = y;
+            return this;
+        }
+
+        Builder nbtButton(int x, int y) {
+            nbtX = x;
+            nbtY = y;
+            return this;
+        }
+
+        Builder preview(int centerX, int baseY, int areaTop, int areaBottom) {
+            showPreview = true;
+            previewCenterX = centerX;
+            previewBaseY = baseY;
+            previewAreaTop = areaTop;
+            previewAreaBottom = areaBottom;
+            return this;
+        }
+
+        DetailPanelLayout build() {
+            return new DetailPanelLayout(this);
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package com.masuary.entitylibrary.client.screen;
 
 import com.masuary.entitylibrary.EntityLibraryMod;
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.data.EntityConstructionWatchdog;
+import com.masuary.entitylibrary.client.data.EntityRenderWatchdog;
 import com.masuary.entitylibrary.client.data.FavoritesManager;
-import com.masuary.entitylibrary.client.data.LootTableParser;
+import com.masuary.entitylibrary.client.data.LivingTypeClassifier;
+import com.masuary.entitylibrary.client.data.LootIndex;
+import com.masuary.entitylibrary.client.data.PreviewEntityPool;
 import com.masuary.entitylibrary.client.data.Theme;
 import com.masuary.entitylibrary.client.data.ThemeManager;
+import com.masuary.entitylibrary.client.search.EntityQuery;
+import com.masuary.entitylibrary.client.search.FacetIndex;
+import com.masuary.entitylibrary.client.search.SearchIndex;
+import com.masuary.entitylibrary.client.search.SearchScheduler;
 import com.mojang.blaze3d.platform.Window;
 import com.mojang.blaze3d.vertex.PoseStack;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
 import net.minecraft.client.Minecraft;
 import org.lwjgl.opengl.GL11;
 import net.minecraft.client.gui.components.Button;
@@ -18,30 +31,56 @@ import net.minecraft.network.chat.TranslatableComponent;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.Mth;
 import net.minecraft.world.entity.Entity;
-import net.minecraft.world.entity.EntityDimensions;
-import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.MobCategory;
-import net.minecraft.world.entity.Mob;
 import net.minecraftforge.registries.ForgeRegistries;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.TreeSet;
+import java.util.function.IntPredicate;
 
 public class EntityLibraryScreen extends Screen {
     private static final int LIST_LEFT = 10;
     private static final int LIST_WIDTH = 230;
     private static final String TRANSLATION_PREFIX = "screen." + EntityLibraryMod.MODID + ".";
+    private static final int CLASSIFICATION_REFRESH_TICKS = 10;
+    private static final long PREFETCH_BUDGET_NANOS = 3_000_000L;
+    private static final int PREFETCH_AHEAD = 4;
+    private static final int PREFETCH_BEHIND = 1;
+    private static final int PREFETCH_LIMIT = 8;
+    private static final int THUMBNAIL_LOOKAHEAD_ROWS = 3;
+    private static final int MAX_COMPARED = 6;
+    private static final int COMPARE_ROW_HEIGHT = 11;
+    /** Height of the name and ID lines above the detail panel's separator. */
+    private static final int DETAIL_HEADER_HEIGHT = 32;
 
-    private static final Map<ResourceLocation, Boolean> livingTypeCache = new HashMap<>();
-    private static final Map<ResourceLocation, MobCategory> categoryCache = new HashMap<>();
-    private static final Map<ResourceLocation, String> displayNameCache = new HashMap<>();
+    @Nullable
+    private static EntityCatalog indexedCatalog;
+    private static int indexedNameGeneration;
+    @Nullable
+    private static SearchIndex searchIndex;
+    @Nullable
+    private static FacetIndex facetIndex;
+
+    private static final MobCategory[] PASSIVE_CATEGORIES = {
+            MobCategory.CREATURE,
+            MobCategory.AMBIENT,
+            MobCategory.WATER_CREATURE,
+            MobCategory.WATER_AMBIENT,
+            MobCategory.UNDERGROUND_WATER_CREATURE,
+            MobCategory.AXOLOTLS
+    };
+
+    static {
+        FavoritesManager.get().addListener((id, favorite) -> {
+            if (facetIndex != null) {
+                facetIndex.setFavorite(id, favorite);
+            }
+        });
+    }
 
     private enum FilterCategory {
         ALL, LIVING, HOSTILE, PASSIVE, FAVORITES;
@@ -67,12 +106,33 @@ public class EntityLibraryScreen extends Screen {
     private EditBox searchBox;
     private EntityTypeSelectionList list;
 
-    private final List<ResourceLocation> allEntityIds = new ArrayList<>();
-    private final List<ResourceLocation> filteredEntityIds = new ArrayList<>();
+    private EntityCatalog catalog;
+    private final IntList filteredIndices = new IntArrayList();
+    private SearchScheduler searchScheduler;
+    private int[] textHits = new int[0];
+    private EntityQuery activeQuery = EntityQuery.EMPTY;
+    private IntPredicate activePredicate = index -> true;
+    // The loot index the active predicate was compiled against; a newer one means recompiling.
+    @Nullable
+    private LootIndex.Snapshot boundLoot;
+    private String dropsNotice = "";
+    private int syncedClassifications;
+    private int ticksUntilClassificationRefresh;
+    private int selectionDirection = 1;
+    private final IntSet prefetchFailed = new IntOpenHashSet();
+    // Rows worth prefetching, rebuilt only when the selection's row, the direction or the viewport moves.
+    private final IntList prefetchCandidates = new IntArrayList(PREFETCH_LIMIT);
+    private int prefetchRow = -1;
+    private int prefetchDirection;
+    private int prefetchFirstVisible = -1;
+    private final IntList comparedIndices = new IntArrayList(MAX_COMPARED);
+    private final Entity[] comparedEntities = new Entity[MAX_COMPARED];
+    private boolean compareMode;
 
     private FilterCategory currentFilter = FilterCategory.LIVING;
     private List<String> availableNamespaces = new ArrayList<>();
     private int currentNamespaceIndex = 0;
+    private final BitSet pinnedNamespaces = new BitSet();
 
     @Nullable
     private ResourceLocation selectedId;
@@ -102,6 +162,9 @@ public class EntityLibraryScreen extends Screen {
     private String cachedDimensions = "";
     private String cachedCategory = "";
     private String cachedDrops = "";
+    /** Search text to put in the box the next time the screen is initialized, e.g. on return from the item lookup. */
+    @Nullable
+    private String pendingSearch;
 
     private boolean animatePreview = false;
 
@@ -112,7 +175,20 @@ public class EntityLibraryScreen extends Screen {
     private Button nbtButton;
     private Button favoriteButton;
     private Button animateButton;
+    private Button retryButton;
     private Button themeButton;
+    private Button compareButton;
+    private final TextureRenderer.Chrome chrome = new TextureRenderer.Chrome();
+    private final TextureRenderer.Chrome.Layout chromeLayout = this::buildChrome;
+    @Nullable
+    private DetailPanelLayout detailLayout;
+    @Nullable
+    private DetailPanelLayout comparisonLayout;
+    private final boolean[] comparedRendered = new boolean[MAX_COMPARED];
+    private String countText = "";
+    private int countTextWidth;
+    private String progressText = "";
+    private int progressPercent = -1;
 
     public EntityLibraryScreen(@Nullable Screen previous) {
         super(new TranslatableComponent(TRANSLATION_PREFIX + "title"));
@@ -127,28 +203,61 @@ public class EntityLibraryScreen extends Screen {
     protected void init() {
         Minecraft mc = Minecraft.getInstance();
 
-        allEntityIds.clear();
-        allEntityIds.addAll(ForgeRegistries.ENTITIES.getKeys());
-        allEntityIds.sort(Comparator
-                .comparing(ResourceLocation::getNamespace)
-                .thenComparing(ResourceLocation::getPath));
+        LivingTypeClassifier classifier = LivingTypeClassifier.get();
+        classifier.ensureStarted();
+
+        this.catalog = EntityCatalog.get();
+        if (indexedCatalog != this.catalog) {
+            indexedCatalog = this.catalog;
+            indexedNameGeneration = this.catalog.nameGeneration();
+            searchIndex = SearchIndex.build(this.catalog);
+            facetIndex = FacetIndex.build(this.catalog);
+        } else if (indexedNameGeneration != this.catalog.nameGeneration()) {
+            indexedNameGeneration = this.catalog.nameGeneration();
+            searchIndex = SearchIndex.build(this.catalog);
+        }
+        facetIndex.syncFavorites();
+        availableNamespaces = facetIndex.namespaceNames();
 
-        TreeSet<String> namespaces = new TreeSet<>();
-        for (ResourceLocation id : allEntityIds) {
-            namespaces.add(id.getNamespace());
+        for (int i = 0; i < this.catalog.size(); i++) {
+            facetIndex.syncLiving(i);
+        }
+        this.syncedClassifications = classifier.completedCount();
+        if (this.searchScheduler != null) {
+            this.searchScheduler.cancel();
+        }
+        this.searchScheduler = new SearchScheduler(searchIndex);
+        this.textHits = new int[this.catalog.size()];
+        for (int i = 0; i < this.textHits.length; i++) {
+            this.textHits[i] = i;
         }
-        availableNamespaces = new ArrayList<>(namespaces);
+        this.activeQuery = EntityQuery.EMPTY;
+        this.activePredicate = index -> true;
+        this.dropsNotice = "";
 
         rightPanelLeft = LIST_LEFT + LIST_WIDTH + 16;
         rightPanelRight = this.width - 10;
         rightPanelTop = 14;
         rightPanelBottom = this.height - 10;
+        this.detailLayout = null;
+        this.comparisonLayout = null;
 
         this.searchBox = new EditBox(this.font, LIST_LEFT, 18, LIST_WIDTH, 18,
                 new TranslatableComponent(TRANSLATION_PREFIX + "search"));
         this.searchBox.setMaxLength(128);
-        this.searchBox.setResponder(s -> this.applyFilter());
+        this.searchBox.setResponder(s -> {
+            // Parse and compile once per edit; the predicate is reused for every entry when results are published.
+            this.activeQuery = EntityQuery.parse(s);
+            this.activePredicate = this.activeQuery.compile(this.catalog);
+            this.boundLoot = LootIndex.get().snapshot(this.catalog);
+            updateDropsNotice();
+            this.searchScheduler.submit(this.activeQuery.text());
+        });
         this.addRenderableWidget(this.searchBox);
+        if (this.pendingSearch != null) {
+            this.searchBox.setValue(this.pendingSearch);
+            this.pendingSearch = null;
+        }
 
         int filterRowY = 38;
         int halfWidth = (LIST_WIDTH - 2) / 2;
@@ -168,7 +277,14 @@ public class EntityLibraryScreen extends Screen {
                 LIST_LEFT + halfWidth + 2, filterRowY, LIST_WIDTH - halfWidth - 2, 20,
                 buildNamespaceLabel(),
                 b -> {
+                    // Shift-click keeps the current mod selected while cycling on, so several mods can be combined.
+                    if (hasShiftDown() && this.currentNamespaceIndex > 0) {
+                        this.pinnedNamespaces.set(this.currentNamespaceIndex - 1);
+                    }
                     this.currentNamespaceIndex = (this.currentNamespaceIndex + 1) % (this.availableNamespaces.size() + 1);
+                    if (this.currentNamespaceIndex == 0) {
+                        this.pinnedNamespaces.clear();
+                    }
                     b.setMessage(buildNamespaceLabel());
                     this.applyFilter();
                 }
@@ -182,12 +298,25 @@ public class EntityLibraryScreen extends Screen {
         this.list.setLeftPos(LIST_LEFT);
         this.addWidget(this.list);
 
+        int compareButtonWidth = 80;
         this.addRenderableWidget(new Button(
-                LIST_LEFT, this.height - 28, LIST_WIDTH, 20,
+                LIST_LEFT, this.height - 28, LIST_WIDTH - compareButtonWidth - 2, 20,
                 new TranslatableComponent("gui.done"),
                 b -> this.onClose()
         ));
 
+        this.compareButton = new Button(
+                LIST_LEFT + LIST_WIDTH - compareButtonWidth, this.height - 28, compareButtonWidth, 20,
+                buildCompareLabel(),
+                b -> {
+                    if (this.comparedIndices.isEmpty() && this.selectedId != null) {
+                        toggleCompared(this.selectedId);
+                    }
+                    setCompareMode(!this.compareMode && !this.comparedIndices.isEmpty());
+                }
+        );
+        this.addRenderableWidget(this.compareButton);
+
         int panelContentRight = rightPanelRight - 8;
 
         this.copyButton = new Button(
@@ -254,6 +383,24 @@ public class EntityLibraryScreen extends Screen {
         this.animateButton.visible = false;
         this.addRenderableWidget(this.animateButton);
 
+        this.retryButton = new Button(
+                rightPanelRight - 168, rightPanelBottom - 24, 52, 16,
+                new TranslatableComponent(TRANSLATION_PREFIX + "retry"),
+                b -> {
+                    if (this.selectedId != null) {
+                        EntityConstructionWatchdog.get().release(this.selectedId);
+                        EntityRenderWatchdog.get().release(this.selectedId);
+                        // A failed attempt may have been the quarantine itself; let prefetch and compare try again.
+                        this.prefetchFailed.remove(this.catalog.indexOf(this.selectedId));
+                        this.prefetchRow = -1;
+                        this.previewError = null;
+                        rebuildPreviewEntity();
+                    }
+                }
+        );
+        this.retryButton.visible = false;
+        this.addRenderableWidget(this.retryButton);
+
         int themeButtonWidth = 50;
         this.themeButton = new Button(
                 LIST_LEFT + LIST_WIDTH - themeButtonWidth, 0, themeButtonWidth, 16,
@@ -265,18 +412,27 @@ public class EntityLibraryScreen extends Screen {
         );
         this.addRenderableWidget(this.themeButton);
 
+        int galleryButtonWidth = 50;
+        this.addRenderableWidget(new Button(
+                LIST_LEFT + LIST_WIDTH - themeButtonWidth - galleryButtonWidth - 2, 0, galleryButtonWidth, 16,
+                new TranslatableComponent(TRANSLATION_PREFIX + "gallery"),
+                b -> Minecraft.getInstance().setScreen(new GalleryScreen(this, this.catalog, this.filteredIndices))
+        ));
+
+        int itemsButtonWidth = 50;
+        this.addRenderableWidget(new Button(
+                LIST_LEFT + LIST_WIDTH - themeButtonWidth - galleryButtonWidth - itemsButtonWidth - 4, 0, itemsButtonWidth, 16,
+                new TranslatableComponent(TRANSLATION_PREFIX + "items"),
+                b -> Minecraft.getInstance().setScreen(new ItemLookupScreen(this, this.catalog))
+        ));
+
         applyFilter();
 
         if (this.selectedId != null) {
             cacheEntityMetadata();
-            this.copyButton.visible = true;
-            this.resetScaleButton.visible = true;
-            this.nbtButton.visible = true;
-            this.favoriteButton.visible = true;
-            this.animateButton.visible = true;
-            updateFavoriteButtonLabel();
-        } else if (!this.filteredEntityIds.isEmpty()) {
-            selectEntityId(this.filteredEntityIds.get(0));
+            setDetailButtonsVisible(!this.compareMode);
+        } else if (!this.filteredIndices.isEmpty()) {
+            selectEntityId(this.catalog.id(this.filteredIndices.getInt(0)));
         }
     }
 
@@ -285,134 +441,122 @@ public class EntityLibraryScreen extends Screen {
             return new TranslatableComponent(TRANSLATION_PREFIX + "mod.all");
         }
         String namespace = availableNamespaces.get(currentNamespaceIndex - 1);
+        int others = pinnedNamespaces.cardinality() - (pinnedNamespaces.get(currentNamespaceIndex - 1) ? 1 : 0);
+        if (others > 0) {
+            return new TranslatableComponent(TRANSLATION_PREFIX + "mod.multiple", namespace, others);
+        }
         return new TranslatableComponent(TRANSLATION_PREFIX + "mod.prefix", namespace);
     }
 
-    private boolean passesFilter(ResourceLocation id) {
+    private BitSet buildFilterMask() {
+        BitSet mask;
         if (currentNamespaceIndex > 0) {
-            String selectedNamespace = availableNamespaces.get(currentNamespaceIndex - 1);
-            if (!id.getNamespace().equals(selectedNamespace)) {
-                return false;
-            }
+            BitSet selected = (BitSet) pinnedNamespaces.clone();
+            selected.set(currentNamespaceIndex - 1);
+            mask = facetIndex.namespaces(selected);
+        } else {
+            mask = facetIndex.all();
         }
+        this.activeQuery.restrictFacets(mask, facetIndex);
 
-        return switch (currentFilter) {
-            case ALL -> true;
-            case LIVING -> isLivingEntityType(id);
-            case HOSTILE -> getCategory(id) == MobCategory.MONSTER;
-            case PASSIVE -> {
-                MobCategory category = getCategory(id);
-                yield category == MobCategory.CREATURE
-                        || category == MobCategory.AMBIENT
-                        || category == MobCategory.WATER_CREATURE
-                        || category == MobCategory.WATER_AMBIENT
-                        || category == MobCategory.UNDERGROUND_WATER_CREATURE
-                        || category == MobCategory.AXOLOTLS;
-            }
-            case FAVORITES -> FavoritesManager.get().isFavorite(id);
-        };
+        switch (currentFilter) {
+            case LIVING -> mask.and(facetIndex.living());
+            case HOSTILE -> mask.and(facetIndex.categories(MobCategory.MONSTER));
+            case PASSIVE -> mask.and(facetIndex.categories(PASSIVE_CATEGORIES));
+            case FAVORITES -> mask.and(facetIndex.favorites());
+        }
+        return mask;
     }
 
-    private MobCategory getCategory(ResourceLocation id) {
-        MobCategory cached = categoryCache.get(id);
-        if (cached != null) {
-            return cached;
+    /**
+     * Copies types classified since the last call into the living facet.
+     *
+     * @return true if anything new was classified
+     */
+    private boolean syncLivingClassifications() {
+        LivingTypeClassifier classifier = LivingTypeClassifier.get();
+        int count = classifier.completedCount();
+        if (count == this.syncedClassifications) {
+            return false;
         }
-
-        EntityType<?> type = ForgeRegistries.ENTITIES.getValue(id);
-        if (type == null) {
-            categoryCache.put(id, MobCategory.MISC);
-            return MobCategory.MISC;
+        for (int i = this.syncedClassifications; i < count; i++) {
+            facetIndex.syncLiving(classifier.completed(i));
         }
-
-        MobCategory category = type.getCategory();
-        categoryCache.put(id, category);
-        return category;
+        this.syncedClassifications = count;
+        return true;
     }
 
-    private String getDisplayNameString(ResourceLocation id) {
-        String cached = displayNameCache.get(id);
-        if (cached != null) {
-            return cached;
+    /**
+     * Recompiles the query once the loot index it was compiled without, or against, is replaced,
+     * so a {@code drops:} clause typed while the index was still building picks it up.
+     */
+    private void rebindLootIndex() {
+        LootIndex.Snapshot loot = LootIndex.get().snapshot(this.catalog);
+        if (loot == this.boundLoot) {
+            return;
         }
-
-        EntityType<?> type = ForgeRegistries.ENTITIES.getValue(id);
-        if (type == null) {
-            displayNameCache.put(id, id.getPath());
-            return id.getPath();
+        this.boundLoot = loot;
+        // The catalog dropped its drop lists for the new index; show the selection's again from it.
+        if (this.selectedId != null) {
+            cacheEntityMetadata();
         }
+        this.comparisonLayout = null;
+        if (this.activeQuery.filtersDrops()) {
+            this.activePredicate = this.activeQuery.compile(this.catalog);
+            applyFilter();
+        }
+        updateDropsNotice();
+    }
 
-        String name = type.getDescription().getString();
-        displayNameCache.put(id, name);
-        return name;
+    /**
+     * Explains why a {@code drops:} clause matches little or nothing while there is no loot index.
+     */
+    private void updateDropsNotice() {
+        if (this.boundLoot != null || !this.activeQuery.filtersDrops()) {
+            this.dropsNotice = "";
+            return;
+        }
+        String key = Minecraft.getInstance().getSingleplayerServer() == null ? "drops.unavailable" : "drops.indexing";
+        this.dropsNotice = new TranslatableComponent(TRANSLATION_PREFIX + key).getString();
     }
 
+    /**
+     * Applies the category and namespace filters to the latest text search hits and refreshes the list.
+     * The text search itself runs on {@link SearchScheduler}; its results arrive through {@link #tick()}.
+     */
     private void applyFilter() {
-        String needle = this.searchBox == null ? "" : this.searchBox.getValue().trim().toLowerCase(Locale.ROOT);
-
-        this.filteredEntityIds.clear();
-
-        for (ResourceLocation id : this.allEntityIds) {
-            if (!passesFilter(id)) {
-                continue;
-            }
-
-            if (!needle.isEmpty()) {
-                String idString = id.toString().toLowerCase(Locale.ROOT);
-                String displayName = getDisplayNameString(id).toLowerCase(Locale.ROOT);
-                if (!idString.contains(needle) && !displayName.contains(needle)) {
-                    continue;
+        this.filteredIndices.clear();
+
+        int selectedIndex = this.selectedId == null ? -1 : this.catalog.indexOf(this.selectedId);
+        int selectedRow = -1;
+        BitSet mask = buildFilterMask();
+        for (int index : this.textHits) {
+            if (mask.get(index) && this.activePredicate.test(index)) {
+                if (index == selectedIndex) {
+                    selectedRow = this.filteredIndices.size();
                 }
+                this.filteredIndices.add(index);
             }
-
-            this.filteredEntityIds.add(id);
         }
 
-        this.list.setEntries(this.filteredEntityIds, this.selectedId);
+        this.list.setEntries(this.catalog, this.filteredIndices, selectedIndex, selectedRow);
+        this.prefetchRow = -1;
+        this.countText = this.filteredIndices.size() + " / " + this.catalog.size();
+        this.countTextWidth = this.font.width(this.countText);
 
-        if (this.selectedId != null && !this.filteredEntityIds.contains(this.selectedId)) {
+        if (this.selectedId != null && this.list.rowOf(selectedIndex) < 0) {
             this.selectedId = null;
             discardPreviewEntity();
             this.previewError = null;
-            this.copyButton.visible = false;
-            this.resetScaleButton.visible = false;
-            this.nbtButton.visible = false;
-            this.favoriteButton.visible = false;
-            this.animateButton.visible = false;
+            setDetailButtonsVisible(false);
         }
     }
 
-    private boolean isLivingEntityType(ResourceLocation id) {
-        Boolean cached = livingTypeCache.get(id);
-        if (cached != null) {
-            return cached;
-        }
-
-        Minecraft mc = Minecraft.getInstance();
-        if (mc.level == null) {
-            return false;
-        }
-
-        var type = ForgeRegistries.ENTITIES.getValue(id);
-        if (type == null) {
-            livingTypeCache.put(id, false);
-            return false;
-        }
-
-        try {
-            Entity entity = type.create(mc.level);
-            if (entity == null) {
-                livingTypeCache.put(id, false);
-                return false;
-            }
-            boolean isLiving = entity instanceof LivingEntity;
-            entity.discard();
-            livingTypeCache.put(id, isLiving);
-            return isLiving;
-        } catch (Throwable t) {
-            livingTypeCache.put(id, false);
-            return false;
-        }
+    /**
+     * Filters the list to the entities dropping the item once this screen is shown again.
+     */
+    public void showDropsOf(ResourceLocation itemId) {
+        this.pendingSearch = "drops:" + itemId;
     }
 
     public void selectEntityId(ResourceLocation id) {
@@ -420,6 +564,14 @@ public class EntityLibraryScreen extends Screen {
             return;
         }
 
+        if (this.selectedId != null && this.catalog != null) {
+            int from = this.list.rowOf(this.catalog.indexOf(this.selectedId));
+            int to = this.list.rowOf(this.catalog.indexOf(id));
+            if (from >= 0 && to >= 0) {
+                this.selectionDirection = to >= from ? 1 : -1;
+            }
+        }
+
         this.selectedId = id;
         this.previewError = null;
         this.previewYaw = 0.0F;
@@ -429,24 +581,66 @@ public class EntityLibraryScreen extends Screen {
         cacheEntityMetadata();
 
         if (this.copyButton != null) {
-            this.copyButton.visible = true;
+            setDetailButtonsVisible(!this.compareMode);
         }
-        if (this.resetScaleButton != null) {
-            this.resetScaleButton.visible = true;
-        }
-        if (this.nbtButton != null) {
-            this.nbtButton.visible = true;
+    }
+
+    /**
+     * Shows or hides the buttons that act on the single selected entity.
+     */
+    private void setDetailButtonsVisible(boolean visible) {
+        this.copyButton.visible = visible;
+        this.resetScaleButton.visible = visible;
+        this.nbtButton.visible = visible;
+        this.favoriteButton.visible = visible;
+        this.animateButton.visible = visible;
+        if (!visible) {
+            this.retryButton.visible = false;
         }
-        if (this.favoriteButton != null) {
-            this.favoriteButton.visible = true;
+        this.detailLayout = null;
+        if (visible) {
             updateFavoriteButtonLabel();
         }
-        if (this.animateButton != null) {
-            this.animateButton.visible = true;
+    }
+
+    /**
+     * Adds the type to the comparison, or removes it if it is already there. Leaves compare mode
+     * when the last one is removed.
+     */
+    public void toggleCompared(ResourceLocation id) {
+        int index = this.catalog.indexOf(id);
+        if (index < 0) {
+            return;
         }
+        int position = this.comparedIndices.indexOf(index);
+        if (position >= 0) {
+            this.comparedIndices.removeInt(position);
+            System.arraycopy(this.comparedEntities, position + 1, this.comparedEntities, position, MAX_COMPARED - position - 1);
+            this.comparedEntities[MAX_COMPARED - 1] = null;
+        } else if (this.comparedIndices.size() < MAX_COMPARED) {
+            this.comparedIndices.add(index);
+        }
+        this.comparisonLayout = null;
+        if (this.comparedIndices.isEmpty() && this.compareMode) {
+            setCompareMode(false);
+        }
+        if (this.compareButton != null) {
+            this.compareButton.setMessage(buildCompareLabel());
+        }
+    }
+
+    private void setCompareMode(boolean compareMode) {
+        this.compareMode = compareMode;
+        this.isDraggingPreview = false;
+        setDetailButtonsVisible(!compareMode && this.selectedId != null);
+    }
+
+    private Component buildCompareLabel() {
+        return new TranslatableComponent(TRANSLATION_PREFIX + "compare", this.comparedIndices.size());
     }
 
     private void cacheEntityMetadata() {
+        this.detailLayout = null;
         if (this.selectedId == null) {
             cachedDisplayName = "";
             cachedRegistryId = "";
@@ -458,29 +652,33 @@ public class EntityLibraryScreen extends Screen {
             return;
         }
 
-        cachedDisplayName = getDisplayNameString(this.selectedId);
         cachedRegistryId = this.selectedId.toString();
         cachedSummonCommand = "/summon " + cachedRegistryId + " ~ ~ ~";
 
-        EntityType<?> type = ForgeRegistries.ENTITIES.getValue(this.selectedId);
-        if (type != null) {
-            EntityDimensions dimensions = type.getDimensions();
-            cachedDimensions = String.format("Size: %.1f x %.1f", dimensions.width, dimensions.height);
-
-            MobCategory category = type.getCategory();
-            cachedCategory = "Category: " + formatCategory(category);
-        } else {
+        int index = this.catalog.indexOf(this.selectedId);
+        if (index < 0) {
+            cachedDisplayName = this.selectedId.getPath();
             cachedDimensions = "";
             cachedCategory = "";
+            cachedMaxHealth = "";
+            cachedDrops = "";
+            return;
         }
 
+        cachedDisplayName = this.catalog.name(index);
+        cachedDimensions = String.format("Size: %.1f x %.1f", this.catalog.width(index), this.catalog.height(index));
+        cachedCategory = "Category: " + formatCategory(this.catalog.category(index));
+
         if (this.previewEntity instanceof LivingEntity living) {
             cachedMaxHealth = "Health: " + (int) living.getMaxHealth();
+        } else if (!Float.isNaN(this.catalog.health(index))) {
+            cachedMaxHealth = "Health: " + (int) this.catalog.health(index);
         } else {
             cachedMaxHealth = "";
         }
 
-        List<String> drops = LootTableParser.getDrops(this.selectedId);
+        List<String> drops = this.catalog.drops(index);
+
         if (drops == null) {
             cachedDrops = new TranslatableComponent(TRANSLATION_PREFIX + "drops.unavailable").getString();
         } else if (drops.isEmpty()) {
@@ -523,11 +721,11 @@ public class EntityLibraryScreen extends Screen {
         }
     }
 
+    /**
+     * Drops the reference to the current preview; the entity itself stays in {@link PreviewEntityPool}.
+     */
     private void discardPreviewEntity() {
-        if (this.previewEntity != null) {
-            this.previewEntity.discard();
-            this.previewEntity = null;
-        }
+        this.previewEntity = null;
     }
 
     private void rebuildPreviewEntity() {
@@ -546,20 +744,18 @@ public class EntityLibraryScreen extends Screen {
             return;
         }
 
+        if (EntityConstructionWatchdog.get().isQuarantined(this.selectedId)) {
+            this.previewError = new TranslatableComponent(TRANSLATION_PREFIX + "error.quarantined");
+            return;
+        }
+
         try {
-            Entity entity = type.create(mc.level);
+            Entity entity = PreviewEntityPool.get().obtain(this.selectedId, mc.level);
             if (entity == null) {
                 this.previewError = new TranslatableComponent(TRANSLATION_PREFIX + "error.cannot_instantiate");
                 return;
             }
 
-            entity.setPos(0.0D, 0.0D, 0.0D);
-            entity.setSilent(true);
-            entity.setInvulnerable(true);
-            if (entity instanceof Mob mob) {
-                mob.setNoAi(true);
-            }
-
             this.previewEntity = entity;
 
             if (!this.userScaled && entity instanceof LivingEntity living) {
@@ -583,10 +779,41 @@ public class EntityLibraryScreen extends Screen {
             this.searchBox.tick();
         }
 
-        if (this.selectedId != null && this.previewEntity == null && this.previewError == null) {
+        if (indexedNameGeneration != this.catalog.nameGeneration()) {
+            onNamesChanged();
+        }
+
+        rebindLootIndex();
+
+        if (this.searchScheduler != null) {
+            SearchScheduler.Result result = this.searchScheduler.poll();
+            if (result != null) {
+                this.textHits = result.hits();
+                applyFilter();
+            }
+        }
+
+        // Background classification fills the living facet over time; refresh the list in batches
+        // rather than every tick so the selection list is not rebuilt twenty times a second.
+        if (syncLivingClassifications() && this.currentFilter == FilterCategory.LIVING) {
+            if (LivingTypeClassifier.get().isComplete() || --this.ticksUntilClassificationRefresh <= 0) {
+                this.ticksUntilClassificationRefresh = CLASSIFICATION_REFRESH_TICKS;
+                applyFilter();
+            }
+        }
+
+        // The pool may have evicted the shown entity to make room; rebuild it if so.
+        if (this.selectedId != null && this.previewError == null
+                && (this.previewEntity == null || this.previewEntity.isRemoved())) {
             rebuildPreviewEntity();
         }
 
+        if (this.compareMode) {
+            obtainComparedEntities();
+        }
+
+        prefetchNeighbours();
+
         if (this.animatePreview && this.previewEntity instanceof LivingEntity living) {
             living.tickCount++;
             living.animationSpeed = 0.6F;
@@ -594,6 +821,137 @@ public class EntityLibraryScreen extends Screen {
         }
     }
 
+    /**
+     * Builds preview entities for the rows the user is likely to select next, so stepping through
+     * the list does not hitch on construction. Rows ahead in the current direction of travel come
+     * first, then the row behind, then the rest of the visible rows. Stops once the per-tick budget
+     * is spent; whatever is left is picked up on the next tick. The candidates themselves are only
+     * worked out again when the selection's row, the direction or the viewport changes.
+     */
+    private void prefetchNeighbours() {
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.level == null || this.selectedId == null || this.filteredIndices.isEmpty()) {
+            return;
+        }
+        int position = this.list.rowOf(this.catalog.indexOf(this.selectedId));
+        if (position < 0) {
+            return;
+        }
+
+        int firstVisible = this.list.firstVisibleRow();
+        IntList candidates = this.prefetchCandidates;
+        if (position != this.prefetchRow || this.selectionDirection != this.prefetchDirection
+                || firstVisible != this.prefetchFirstVisible) {
+            this.prefetchRow = position;
+            this.prefetchDirection = this.selectionDirection;
+            this.prefetchFirstVisible = firstVisible;
+            candidates.clear();
+            for (int step = 1; step <= PREFETCH_AHEAD; step++) {
+                addPrefetchCandidate(candidates, position + step * this.selectionDirection);
+            }
+            for (int step = 1; step <= PREFETCH_BEHIND; step++) {
+                addPrefetchCandidate(candidates, position - step * this.selectionDirection);
+            }
+            int visibleRows = this.list.visibleRowCount();
+            for (int row = firstVisible; row < firstVisible + visibleRows && candidates.size() < PREFETCH_LIMIT; row++) {
+                addPrefetchCandidate(candidates, row);
+            }
+        }
+
+        PreviewEntityPool pool = PreviewEntityPool.get();
+        EntityConstructionWatchdog watchdog = EntityConstructionWatchdog.get();
+        long deadline = System.nanoTime() + PREFETCH_BUDGET_NANOS;
+        for (int i = 0; i < candidates.size() && System.nanoTime() < deadline; i++) {
+            int index = candidates.getInt(i);
+            ResourceLocation id = this.catalog.id(index);
+            if (this.prefetchFailed.contains(index) || pool.contains(id) || watchdog.isQuarantined(id)) {
+                continue;
+            }
+            try {
+                if (pool.obtain(id, mc.level) == null) {
+                    this.prefetchFailed.add(index);
+                }
+            } catch (Throwable t) {
+                this.prefetchFailed.add(index);
+            }
+        }
+    }
+
+    /**
+     * Fills in compared entities that are missing or were evicted from the pool.
+     */
+    private void obtainComparedEntities() {
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.level == null) {
+            return;
+        }
+        for (int i = 0; i < this.comparedIndices.size(); i++) {
+            Entity entity = this.comparedEntities[i];
+            int index = this.comparedIndices.getInt(i);
+            if ((entity != null && !entity.isRemoved()) || this.prefetchFailed.contains(index)) {
+                continue;
+            }
+            ResourceLocation id = this.catalog.id(index);
+            // Quarantine is not a construction failure: the slot fills in once the type is released.
+            if (EntityConstructionWatchdog.get().isQuarantined(id)) {
+                this.comparedEntities[i] = null;
+                continue;
+            }
+            try {
+                this.comparedEntities[i] = PreviewEntityPool.get().obtain(id, mc.level);
+            } catch (Throwable t) {
+                this.comparedEntities[i] = null;
+            }
+            if (this.comparedEntities[i] == null) {
+                this.prefetchFailed.add(index);
+            }
+        }
+    }
+
+    private void addPrefetchCandidate(IntList candidates, int position) {
+        if (position < 0 || position >= this.filteredIndices.size() || candidates.size() >= PREFETCH_LIMIT) {
+            return;
+        }
+        int index = this.filteredIndices.getInt(position);
+        // Only living types get a preview, so known non-living types are not worth building.
+        if (this.prefetchFailed.contains(index) || candidates.contains(index)
+                || (this.catalog.isClassified(index) && !this.catalog.isLiving(index))) {
+            return;
+        }
+        candidates.add(index);
+    }
+
+    /**
+     * Display names were re-resolved after a resource reload or language change. Only the name-derived
+     * search index is rebuilt; facets and metadata columns are unaffected.
+     */
+    private void onNamesChanged() {
+        indexedNameGeneration = this.catalog.nameGeneration();
+        searchIndex = SearchIndex.build(this.catalog);
+        this.searchScheduler.cancel();
+        this.searchScheduler = new SearchScheduler(searchIndex);
+        this.searchScheduler.submit(this.activeQuery.text());
+        cacheEntityMetadata();
+    }
+
+    /**
+     * The separator under the detail header only shows when there is a header.
+     */
+    private boolean hasDetailSeparator() {
+        return this.compareMode || this.selectedId != null;
+    }
+
+    private void buildChrome(TextureRenderer.Chrome.Builder builder) {
+        int listTop = 68;
+        int listBottom = this.height - 40;
+        builder.background(0, 0, this.width, this.height)
+                .panel(LIST_LEFT - 4, listTop - 4, LIST_WIDTH + 8, listBottom - listTop + 8)
+                .panel(rightPanelLeft - 8, rightPanelTop - 5, rightPanelRight - rightPanelLeft + 16, rightPanelBottom - rightPanelTop + 10);
+        if (hasDetailSeparator()) {
+            builder.separator(rightPanelLeft + 4, rightPanelTop + DETAIL_HEADER_HEIGHT, rightPanelRight - rightPanelLeft - 8);
+        }
+    }
+
     @Override
     public void render(PoseStack poseStack, int mouseX, int mouseY, float partialTicks) {
         Theme theme = ThemeManager.get().currentTheme();
@@ -601,9 +959,8 @@ public class EntityLibraryScreen extends Screen {
         int listTop = 68;
         int listBottom = this.height - 40;
 
-        TextureRenderer.drawTilingBackground(poseStack, 0, 0, this.width, this.height);
-        TextureRenderer.drawPanel(poseStack, LIST_LEFT - 4, listTop - 4, LIST_WIDTH + 8, listBottom - listTop + 8);
-        TextureRenderer.drawPanel(poseStack, rightPanelLeft - 8, rightPanelTop - 5, rightPanelRight - rightPanelLeft + 16, rightPanelBottom - rightPanelTop + 10);
+        long chromeKey = ((long) this.width << 32) | ((long) this.height << 1) | (hasDetailSeparator() ? 1L : 0L);
+        this.chrome.draw(poseStack, chromeKey, this.chromeLayout);
 
         this.font.draw(poseStack, this.title, LIST_LEFT, 6, theme.titleColor());
 
@@ -615,115 +972,286 @@ public class EntityLibraryScreen extends Screen {
         int scissorY = (int) ((this.height - listBottom) * scale);
         int scissorW = (int) (LIST_WIDTH * scale);
         int scissorH = (int) ((listBottom - listTop) * scale);
+        ThumbnailAtlas thumbnails = ThumbnailAtlas.get();
+        thumbnails.renderPending(this.catalog);
+        this.list.requestThumbnailsAround(thumbnails, THUMBNAIL_LOOKAHEAD_ROWS);
         GL11.glEnable(GL11.GL_SCISSOR_TEST);
         GL11.glScissor(scissorX, scissorY, scissorW, scissorH);
         this.list.render(poseStack, mouseX, mouseY, partialTicks);
         GL11.glDisable(GL11.GL_SCISSOR_TEST);
 
-        String countText = this.filteredEntityIds.size() + " / " + this.allEntityIds.size();
-        int countWidth = this.font.width(countText);
-        this.font.draw(poseStack, countText, (float) (LIST_LEFT + LIST_WIDTH - countWidth), 60.0F, theme.countText());
+        this.font.draw(poseStack, this.countText, (float) (LIST_LEFT + LIST_WIDTH - this.countTextWidth), 60.0F, theme.countText());
+
+        LivingTypeClassifier classifier = LivingTypeClassifier.get();
+        if (!classifier.isComplete()) {
+            int percent = (int) (classifier.progress() * 100.0F);
+            if (percent != this.progressPercent) {
+                this.progressPercent = percent;
+                this.progressText = new TranslatableComponent(TRANSLATION_PREFIX + "classifying", percent).getString();
+            }
+            this.font.draw(poseStack, this.progressText, (float) LIST_LEFT, 60.0F, theme.hintText());
+        } else if (!this.dropsNotice.isEmpty()) {
+            this.font.draw(poseStack, this.dropsNotice, (float) LIST_LEFT, 60.0F, theme.hintText());
+        }
 
         int panelContentLeft = rightPanelLeft + 4;
         int panelContentRight = rightPanelRight - 4;
-        int panelMaxTextWidth = panelContentRight - panelContentLeft;
+
+        if (this.compareMode) {
+            renderComparison(poseStack, theme, window, panelContentLeft, panelContentRight);
+            return;
+        }
+
+        // Either watchdog may quarantine the selection while it is shown, so this is checked every frame.
+        boolean quarantined = this.selectedId != null && (EntityConstructionWatchdog.get().isQuarantined(this.selectedId)
+                || EntityRenderWatchdog.get().isQuarantined(this.selectedId));
+        if (quarantined != this.retryButton.visible) {
+            this.retryButton.visible = quarantined;
+            this.detailLayout = null;
+        }
+
+        DetailPanelLayout layout = this.detailLayout;
+        if (layout == null || !layout.isFor(this.selectedId, this.previewEntity, this.previewError, theme, this.catalog.nameGeneration())) {
+            layout = buildDetailLayout(theme);
+            this.detailLayout = layout;
+        }
+        layout.draw(poseStack, this.font);
+        if (this.selectedId == null) {
+            return;
+        }
+
+        this.favoriteButton.x = layout.favoriteX;
+        this.favoriteButton.y = layout.favoriteY;
+        this.copyButton.x = layout.copyX;
+        this.copyButton.y = layout.copyY;
+        this.nbtButton.x = layout.nbtX;
+        this.nbtButton.y = layout.nbtY;
+
+        if (layout.showPreview && this.previewEntity instanceof LivingEntity living) {
+            double guiScale = window.getGuiScale();
+            int panelScissorX = (int) ((rightPanelLeft - 4) * guiScale);
+            int panelScissorY = (int) ((this.height - layout.previewAreaBottom) * guiScale);
+            int panelScissorW = (int) ((rightPanelRight - rightPanelLeft + 8) * guiScale);
+            int panelScissorH = (int) ((layout.previewAreaBottom - layout.previewAreaTop) * guiScale);
+            GL11.glEnable(GL11.GL_SCISSOR_TEST);
+            GL11.glScissor(panelScissorX, panelScissorY, panelScissorW, panelScissorH);
+            boolean rendered = EntityPreviewRenderer.render(layout.previewCenterX, layout.previewBaseY, this.previewScale, this.previewYaw, this.previewPitch, living);
+            GL11.glDisable(GL11.GL_SCISSOR_TEST);
+            if (!rendered) {
+                renderPreviewFallback(poseStack, theme, layout);
+            }
+        }
+    }
+
+    /**
+     * Lays out the detail panel for the current selection, preview state, theme and language.
+     * Everything measured or truncated here is reused by every frame until one of those changes.
+     */
+    private DetailPanelLayout buildDetailLayout(Theme theme) {
+        DetailPanelLayout.Builder layout = new DetailPanelLayout.Builder(this.font, this.selectedId, this.previewEntity,
+                this.previewError, theme, this.catalog.nameGeneration());
 
         if (this.selectedId == null) {
             String hintText = new TranslatableComponent(TRANSLATION_PREFIX + "no_selection").getString();
-            int hintWidth = this.font.width(hintText);
-            int hintX = rightPanelLeft + (rightPanelRight - rightPanelLeft - hintWidth) / 2;
             int hintY = rightPanelTop + (rightPanelBottom - rightPanelTop) / 2 - 4;
-            this.font.draw(poseStack, hintText, hintX, hintY, theme.noSelectionText());
-            return;
+            return layout.centeredText(hintText, (rightPanelLeft + rightPanelRight) / 2, hintY, theme.noSelectionText()).build();
         }
 
+        int panelContentLeft = rightPanelLeft + 4;
+        int panelContentRight = rightPanelRight - 4;
+        int panelMaxTextWidth = panelContentRight - panelContentLeft;
         int panelY = rightPanelTop + 6;
 
-        this.favoriteButton.x = panelContentRight - 16;
-        this.favoriteButton.y = panelY - 4;
-
-        String truncatedDisplayName = this.font.plainSubstrByWidth(cachedDisplayName, panelMaxTextWidth - 22);
-        this.font.drawShadow(poseStack, truncatedDisplayName, panelContentLeft, panelY, theme.primaryText());
+        layout.favoriteButton(panelContentRight - 16, panelY - 4);
+        layout.shadowedText(cachedDisplayName, panelContentLeft, panelY, panelMaxTextWidth - 22, theme.primaryText());
         panelY += 12;
 
-        String truncatedRegistryId = this.font.plainSubstrByWidth(cachedRegistryId, panelMaxTextWidth);
-        this.font.draw(poseStack, truncatedRegistryId, panelContentLeft, panelY, theme.secondaryText());
+        layout.text(cachedRegistryId, panelContentLeft, panelY, panelMaxTextWidth, theme.secondaryText());
         panelY += 14;
 
-        TextureRenderer.drawSeparator(poseStack, panelContentLeft, panelY, panelContentRight - panelContentLeft);
         panelY += 6;
 
         if (!cachedMaxHealth.isEmpty()) {
-            String healthAndSize = cachedMaxHealth;
-            if (!cachedDimensions.isEmpty()) {
-                healthAndSize += "    " + cachedDimensions;
-            }
-            String truncatedStats = this.font.plainSubstrByWidth(healthAndSize, panelMaxTextWidth);
-            this.font.draw(poseStack, truncatedStats, panelContentLeft, panelY, theme.statsText());
+            String healthAndSize = cachedDimensions.isEmpty() ? cachedMaxHealth : cachedMaxHealth + "    " + cachedDimensions;
+            layout.text(healthAndSize, panelContentLeft, panelY, panelMaxTextWidth, theme.statsText());
             panelY += 12;
         } else if (!cachedDimensions.isEmpty()) {
-            String truncatedDimensions = this.font.plainSubstrByWidth(cachedDimensions, panelMaxTextWidth);
-            this.font.draw(poseStack, truncatedDimensions, panelContentLeft, panelY, theme.statsText());
+            layout.text(cachedDimensions, panelContentLeft, panelY, panelMaxTextWidth, theme.statsText());
             panelY += 12;
         }
 
         if (!cachedCategory.isEmpty()) {
-            String truncatedCategory = this.font.plainSubstrByWidth(cachedCategory, panelMaxTextWidth);
-            this.font.draw(poseStack, truncatedCategory, panelContentLeft, panelY, theme.statsText());
+            layout.text(cachedCategory, panelContentLeft, panelY, panelMaxTextWidth, theme.statsText());
             panelY += 12;
         }
 
         if (!cachedDrops.isEmpty()) {
-            String truncatedDrops = this.font.plainSubstrByWidth(cachedDrops, panelMaxTextWidth);
-            this.font.draw(poseStack, truncatedDrops, panelContentLeft, panelY, theme.statsText());
+            layout.text(cachedDrops, panelContentLeft, panelY, panelMaxTextWidth, theme.statsText());
             panelY += 12;
         }
 
         panelY += 2;
 
-        String truncatedSummon = this.font.plainSubstrByWidth(cachedSummonCommand, panelMaxTextWidth - 90);
-        this.font.draw(poseStack, truncatedSummon, panelContentLeft, panelY, theme.commandText());
-
-        this.copyButton.x = panelContentRight - 40;
-        this.copyButton.y = panelY - 2;
-
-        this.nbtButton.x = panelContentRight - 86;
-        this.nbtButton.y = panelY - 2;
+        layout.text(cachedSummonCommand, panelContentLeft, panelY, panelMaxTextWidth - 90, theme.commandText());
+        layout.copyButton(panelContentRight - 40, panelY - 2);
+        layout.nbtButton(panelContentRight - 86, panelY - 2);
 
         panelY += 18;
 
         int previewAreaTop = panelY;
 
         if (this.previewError != null) {
-            String truncatedError = this.font.plainSubstrByWidth(this.previewError.getString(), panelMaxTextWidth);
-            this.font.draw(poseStack, truncatedError, panelContentLeft, panelY, theme.errorText());
-        } else if (this.previewEntity instanceof LivingEntity living) {
-            int previewCenterX = (rightPanelLeft + rightPanelRight) / 2;
+            layout.text(this.previewError.getString(), panelContentLeft, panelY, panelMaxTextWidth, theme.errorText());
+        } else if (this.previewEntity instanceof LivingEntity) {
             int previewAreaBottom = rightPanelBottom - 28;
             int previewBaseY = previewAreaTop + (previewAreaBottom - previewAreaTop) * 3 / 4;
-
-            double guiScale = window.getGuiScale();
-            int panelScissorX = (int) ((rightPanelLeft - 4) * guiScale);
-            int panelScissorY = (int) ((this.height - previewAreaBottom) * guiScale);
-            int panelScissorW = (int) ((rightPanelRight - rightPanelLeft + 8) * guiScale);
-            int panelScissorH = (int) ((previewAreaBottom - previewAreaTop) * guiScale);
-            GL11.glEnable(GL11.GL_SCISSOR_TEST);
-            GL11.glScissor(panelScissorX, panelScissorY, panelScissorW, panelScissorH);
-            EntityPreviewRenderer.render(previewCenterX, previewBaseY, this.previewScale, this.previewYaw, this.previewPitch, living);
-            GL11.glDisable(GL11.GL_SCISSOR_TEST);
+            layout.preview((rightPanelLeft + rightPanelRight) / 2, previewBaseY, previewAreaTop, previewAreaBottom);
+            layout.fallbackNotice(new TranslatableComponent(TRANSLATION_PREFIX + "error.render_quarantined").getString(), panelMaxTextWidth);
         } else {
             String livingOnlyError = new TranslatableComponent(TRANSLATION_PREFIX + "error.living_only").getString();
-            String truncatedLivingError = this.font.plainSubstrByWidth(livingOnlyError, panelMaxTextWidth);
-            this.font.draw(poseStack, truncatedLivingError, panelContentLeft, panelY, theme.errorText());
+            layout.text(livingOnlyError, panelContentLeft, panelY, panelMaxTextWidth, theme.errorText());
         }
 
-        int bottomButtonsWidth = (this.resetScaleButton.visible ? 52 : 0) + (this.animateButton.visible ? 56 : 0);
+        int bottomButtonsWidth = (this.resetScaleButton.visible ? 52 : 0) + (this.animateButton.visible ? 56 : 0)
+                + (this.retryButton.visible ? 56 : 0);
         int hintMaxWidth = panelMaxTextWidth - bottomButtonsWidth;
         int hintY = rightPanelBottom - 24;
-        String dragHint = this.font.plainSubstrByWidth(new TranslatableComponent(TRANSLATION_PREFIX + "hint.drag_rotate").getString(), hintMaxWidth);
-        String scrollHint = this.font.plainSubstrByWidth(new TranslatableComponent(TRANSLATION_PREFIX + "hint.scroll_scale").getString(), hintMaxWidth);
-        this.font.draw(poseStack, dragHint, panelContentLeft, hintY, theme.hintText());
-        this.font.draw(poseStack, scrollHint, panelContentLeft, hintY + 10, theme.hintText());
+        layout.text(new TranslatableComponent(TRANSLATION_PREFIX + "hint.drag_rotate").getString(), panelContentLeft, hintY, hintMaxWidth, theme.hintText());
+        layout.text(new TranslatableComponent(TRANSLATION_PREFIX + "hint.scroll_scale").getString(), panelContentLeft, hintY + 10, hintMaxWidth, theme.hintText());
+        return layout.build();
+    }
+
+    /**
+     * Draws the compared entities side by side at one shared scale, so their relative sizes are
+     * true, in a single buffer batch. The stats under each come from the catalog, with differences
+     * against the first entity; their text is laid out once in {@link #comparisonLayout}.
+     */
+    private void renderComparison(PoseStack poseStack, Theme theme, Window window, int panelContentLeft, int panelContentRight) {
+        DetailPanelLayout layout = this.comparisonLayout;
+        if (layout == null || !layout.isFor(null, null, null, theme, this.catalog.nameGeneration())) {
+            layout = buildComparisonLayout(theme, panelContentLeft, panelContentRight);
+            this.comparisonLayout = layout;
+        }
+        layout.draw(poseStack, this.font);
+
+        int count = this.comparedIndices.size();
+        int columnWidth = (panelContentRight - panelContentLeft) / count;
+        int previewAreaTop = layout.previewAreaTop;
+        int previewAreaBottom = layout.previewAreaBottom;
+        int previewBaseY = layout.previewBaseY;
+
+        float tallest = 0.5F;
+        float widest = 0.5F;
+        for (int i = 0; i < count; i++) {
+            tallest = Math.max(tallest, this.catalog.height(this.comparedIndices.getInt(i)));
+            widest = Math.max(widest, this.catalog.width(this.comparedIndices.getInt(i)));
+        }
+        int scale = (int) Mth.clamp(Math.min((previewAreaBottom - previewAreaTop - 16) / tallest, columnWidth * 0.8F / widest), 2.0F, 90.0F);
+
+        double guiScale = window.getGuiScale();
+        GL11.glEnable(GL11.GL_SCISSOR_TEST);
+        GL11.glScissor((int) ((rightPanelLeft - 4) * guiScale), (int) ((this.height - previewAreaBottom) * guiScale),
+                (int) ((rightPanelRight - rightPanelLeft + 8) * guiScale), (int) ((previewAreaBottom - previewAreaTop) * guiScale));
+        boolean[] rendered = this.comparedRendered;
+        EntityPreviewRenderer.Batch batch = EntityPreviewRenderer.begin();
+        try {
+            for (int i = 0; i < count; i++) {
+                rendered[i] = this.comparedEntities[i] instanceof LivingEntity living && !living.isRemoved()
+                        && batch.add(panelContentLeft + columnWidth * i + columnWidth / 2, previewBaseY, scale,
+                                this.previewYaw, this.previewPitch, living);
+            }
+        } finally {
+            batch.end();
+        }
+        GL11.glDisable(GL11.GL_SCISSOR_TEST);
+
+        for (int i = 0; i < count; i++) {
+            int columnCenter = panelContentLeft + columnWidth * i + 2 + (columnWidth - 4) / 2;
+            if (!rendered[i] && !ThumbnailAtlas.get().draw(poseStack, this.catalog, this.comparedIndices.getInt(i),
+                    columnCenter - 16, previewBaseY - 32, 32)) {
+                drawCenteredString(poseStack, this.font, "?", columnCenter, previewBaseY - 16, theme.hintText());
+            }
+        }
+    }
+
+    /**
+     * Lays out the comparison's title and the stats under each column. Rebuilt when the compared
+     * set, the panel size, the theme, the language or the loot index changes.
+     */
+    private DetailPanelLayout buildComparisonLayout(Theme theme, int panelContentLeft, int panelContentRight) {
+        DetailPanelLayout.Builder layout = new DetailPanelLayout.Builder(this.font, null, null, null, theme, this.catalog.nameGeneration());
+        int count = this.comparedIndices.size();
+        int panelY = rightPanelTop + 6;
+        layout.shadowedText(new TranslatableComponent(TRANSLATION_PREFIX + "compare.title", count).getString(),
+                panelContentLeft, panelY, panelContentRight - panelContentLeft, theme.primaryText());
+        panelY += 12;
+        layout.text(new TranslatableComponent(TRANSLATION_PREFIX + "compare.hint").getString(),
+                panelContentLeft, panelY, panelContentRight - panelContentLeft, theme.hintText());
+        panelY += 14;
+        panelY += 6;
+
+        int columnWidth = (panelContentRight - panelContentLeft) / count;
+        int previewAreaBottom = rightPanelBottom - 8 - COMPARE_ROW_HEIGHT * 4;
+        layout.preview((panelContentLeft + panelContentRight) / 2, previewAreaBottom - 8, panelY, previewAreaBottom);
+
+        int baseline = this.comparedIndices.getInt(0);
+        for (int i = 0; i < count; i++) {
+            int index = this.comparedIndices.getInt(i);
+            int columnX = panelContentLeft + columnWidth * i + 2;
+            int maxWidth = columnWidth - 4;
+            int rowY = previewAreaBottom + 4;
+
+            layout.text(this.catalog.name(index), columnX, rowY, maxWidth, theme.primaryText());
+            rowY += COMPARE_ROW_HEIGHT;
+
+            String health = Float.isNaN(this.catalog.health(index))
+                    ? "HP -"
+                    : "HP " + formatStat(this.catalog.health(index)) + formatDelta(this.catalog.health(index), this.catalog.health(baseline), i);
+            layout.text(health, columnX, rowY, maxWidth, theme.statsText());
+            rowY += COMPARE_ROW_HEIGHT;
+
+            String size = formatStat(this.catalog.width(index)) + "x" + formatStat(this.catalog.height(index))
+                    + formatDelta(this.catalog.height(index), this.catalog.height(baseline), i);
+            layout.text(size, columnX, rowY, maxWidth, theme.statsText());
+            rowY += COMPARE_ROW_HEIGHT;
+
+            List<String> drops = this.catalog.drops(index);
+            String dropsText = drops == null ? "-" : drops.isEmpty()
+                    ? new TranslatableComponent(TRANSLATION_PREFIX + "drops.none").getString()
+                    : String.join(", ", drops);
+            layout.text(dropsText, columnX, rowY, maxWidth, theme.statsText());
+        }
+        return layout.build();
+    }
+
+    /**
+     * Stands in for a preview whose renderer is quarantined: the cached thumbnail if there is one,
+     * otherwise a short notice.
+     */
+    private void renderPreviewFallback(PoseStack poseStack, Theme theme, DetailPanelLayout layout) {
+        int index = this.catalog.indexOf(this.selectedId);
+        int centerX = layout.previewCenterX;
+        int baseY = layout.previewBaseY;
+        if (index >= 0 && ThumbnailAtlas.get().draw(poseStack, this.catalog, index, centerX - 32, baseY - 64, 64)) {
+            return;
+        }
+        drawCenteredString(poseStack, this.font, layout.fallbackNotice, centerX, baseY - 20, theme.errorText());
+    }
+
+    private static String formatStat(float value) {
+        return value == (int) value ? Integer.toString((int) value) : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    /**
+     * Difference against the first compared entity, empty for the first column itself or when
+     * either value is unknown.
+     */
+    private static String formatDelta(float value, float baseline, int column) {
+        if (column == 0 || Float.isNaN(value) || Float.isNaN(baseline) || value == baseline) {
+            return "";
+        }
+        float delta = value - baseline;
+        return " (" + (delta > 0.0F ? "+" : "-") + formatStat(Math.abs(delta)) + ")";
     }
 
     @Override
@@ -733,7 +1261,7 @@ public class EntityLibraryScreen extends Screen {
         }
         if (button == 0 && mouseX >= rightPanelLeft && mouseX <= rightPanelRight
                 && mouseY >= rightPanelTop + 80 && mouseY <= rightPanelBottom - 28
-                && this.previewEntity instanceof LivingEntity) {
+                && (this.compareMode || this.previewEntity instanceof LivingEntity)) {
             this.isDraggingPreview = true;
             return true;
         }
@@ -772,9 +1300,17 @@ public class EntityLibraryScreen extends Screen {
         return super.mouseScrolled(mouseX, mouseY, delta);
     }
 
+    @Override
+    public void removed() {
+        this.chrome.close();
+    }
+
     @Override
     public void onClose() {
+        this.searchScheduler.cancel();
         discardPreviewEntity();
+        PreviewEntityPool.get().clear();
+        ThumbnailAtlas.get().save();
         Minecraft.getInstance().setScreen(this.previous);
     }
 }
@@ -1,5 +1,6 @@
 package com.masuary.entitylibrary.client.screen;
 
+import com.masuary.entitylibrary.client.data.EntityRenderWatchdog;
 import com.mojang.blaze3d.platform.Lighting;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.PoseStack;
@@ -8,62 +9,162 @@ import com.mojang.math.Vector3f;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.LivingEntity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public final class EntityPreviewRenderer {
+    private static final Logger LOGGER = LogManager.getLogger();
+
     private EntityPreviewRenderer() {}
 
-    public static void render(int x, int y, int scale, float yaw, float pitch, LivingEntity entity) {
-        var modelViewStack = RenderSystem.getModelViewStack();
-        modelViewStack.pushPose();
-        modelViewStack.translate((double) x, (double) y, 1050.0D);
-        modelViewStack.scale(1.0F, 1.0F, -1.0F);
-        RenderSystem.applyModelViewMatrix();
-
-        var poseStack = new PoseStack();
-        poseStack.translate(0.0D, 0.0D, 1000.0D);
-        poseStack.scale((float) scale, (float) scale, (float) scale);
-
-        Quaternion rotZ = Vector3f.ZP.rotationDegrees(180.0F);
-        Quaternion rotX = Vector3f.XP.rotationDegrees(pitch * 20.0F);
-        rotZ.mul(rotX);
-        poseStack.mulPose(rotZ);
-
-        float prevBodyRot = entity.yBodyRot;
-        float prevYRot = entity.getYRot();
-        float prevXRot = entity.getXRot();
-        float prevHeadRot = entity.yHeadRot;
-        float prevHeadRotO = entity.yHeadRotO;
-
-        entity.yBodyRot = 180.0F + yaw * 20.0F;
-        entity.setYRot(180.0F + yaw * 40.0F);
-        entity.setXRot(-pitch * 20.0F);
-        entity.yHeadRot = entity.getYRot();
-        entity.yHeadRotO = entity.getYRot();
-
-        Lighting.setupForEntityInInventory();
-
-        EntityRenderDispatcher dispatcher = Minecraft.getInstance().getEntityRenderDispatcher();
-        Quaternion cam = Vector3f.XP.rotationDegrees(pitch * 20.0F);
-        cam.conj();
-        dispatcher.overrideCameraOrientation(cam);
-        dispatcher.setRenderShadow(false);
-
-        MultiBufferSource.BufferSource buffers = Minecraft.getInstance().renderBuffers().bufferSource();
-        RenderSystem.enableDepthTest();
-        dispatcher.render(entity, 0.0D, 0.0D, 0.0D, 0.0F, 1.0F, poseStack, buffers, 0x00F000F0);
-        buffers.endBatch();
-        dispatcher.setRenderShadow(true);
-
-        entity.yBodyRot = prevBodyRot;
-        entity.setYRot(prevYRot);
-        entity.setXRot(prevXRot);
-        entity.yHeadRot = prevHeadRot;
-        entity.yHeadRotO = prevHeadRotO;
-
-        modelViewStack.popPose();
-        RenderSystem.applyModelViewMatrix();
-
-        Lighting.setupFor3DItems();
+    /**
+     * @return false if nothing was drawn because the type's renderer is quarantined or just failed
+     */
+    public static boolean render(int x, int y, int scale, float yaw, float pitch, LivingEntity entity) {
+        Batch batch = begin();
+        try {
+            return batch.add(x, y, scale, yaw, pitch, entity);
+        } finally {
+            batch.end();
+        }
+    }
+
+    /**
+     * Starts drawing several entities into one buffer source, flushed once by {@link Batch#end()}.
+     * Each entity's placement is baked into its own pose, so the shared model-view matrix is the
+     * same for all of them when the buffers are drawn.
+     */
+    public static Batch begin() {
+        return new Batch();
+    }
+
+    public static final class Batch {
+        private final EntityRenderDispatcher dispatcher = Minecraft.getInstance().getEntityRenderDispatcher();
+        private final MultiBufferSource.BufferSource buffers = Minecraft.getInstance().renderBuffers().bufferSource();
+        /** Types whose geometry went into the buffers, and those whose renderer threw while emitting it. */
+        private final List<ResourceLocation> emitted = new ArrayList<>();
+        private final List<ResourceLocation> threw = new ArrayList<>();
+
+        private Batch() {
+            var modelViewStack = RenderSystem.getModelViewStack();
+            modelViewStack.pushPose();
+            modelViewStack.translate(0.0D, 0.0D, 1050.0D);
+            modelViewStack.scale(1.0F, 1.0F, -1.0F);
+            RenderSystem.applyModelViewMatrix();
+
+            Lighting.setupForEntityInInventory();
+            dispatcher.setRenderShadow(false);
+            RenderSystem.enableDepthTest();
+        }
+
+        /**
+         * Emits the entity into the batch. Renderers quarantined by {@link EntityRenderWatchdog} are
+         * skipped; otherwise the call is timed and any exception is caught and reported to it, so
+         * the caller can draw a fallback instead.
+         *
+         * @return whether the entity was drawn
+         */
+        public boolean add(int x, int y, int scale, float yaw, float pitch, LivingEntity entity) {
+            ResourceLocation id = entity.getType().getRegistryName();
+            EntityRenderWatchdog watchdog = EntityRenderWatchdog.get();
+            if (id != null && watchdog.isQuarantined(id)) {
+                return false;
+            }
+
+            var poseStack = new PoseStack();
+            poseStack.translate((double) x, (double) y, 1000.0D);
+            poseStack.scale((float) scale, (float) scale, (float) scale);
+
+            Quaternion rotZ = Vector3f.ZP.rotationDegrees(180.0F);
+            Quaternion rotX = Vector3f.XP.rotationDegrees(pitch * 20.0F);
+            rotZ.mul(rotX);
+            poseStack.mulPose(rotZ);
+
+            float prevBodyRot = entity.yBodyRot;
+            float prevYRot = entity.getYRot();
+            float prevXRot = entity.getXRot();
+            float prevHeadRot = entity.yHeadRot;
+            float prevHeadRotO = entity.yHeadRotO;
+
+            entity.yBodyRot = 180.0F + yaw * 20.0F;
+            entity.setYRot(180.0F + yaw * 40.0F);
+            entity.setXRot(-pitch * 20.0F);
+            entity.yHeadRot = entity.getYRot();
+            entity.yHeadRotO = entity.getYRot();
+
+            Quaternion cam = Vector3f.XP.rotationDegrees(pitch * 20.0F);
+            cam.conj();
+            dispatcher.overrideCameraOrientation(cam);
+
+            long start = System.nanoTime();
+            if (id != null) {
+                emitted.add(id);
+            }
+            try {
+                dispatcher.render(entity, 0.0D, 0.0D, 0.0D, 0.0F, 1.0F, poseStack, buffers, 0x00F000F0);
+                if (id != null) {
+                    watchdog.recordRender(id, System.nanoTime() - start);
+                }
+                return true;
+            } catch (Throwable t) {
+                if (id != null) {
+                    threw.add(id);
+                    watchdog.recordFailure(id, t);
+                }
+                return false;
+            } finally {
+                entity.yBodyRot = prevBodyRot;
+                entity.setYRot(prevYRot);
+                entity.setXRot(prevXRot);
+                entity.yHeadRot = prevHeadRot;
+                entity.yHeadRotO = prevHeadRotO;
+            }
+        }
+
+        /**
+         * Draws everything added since {@link #begin()} and restores the GUI render state. A flush
+         * that fails, typically on geometry a throwing renderer left half-written, is not rethrown:
+         * it is blamed on the renderers that threw, or else counted as a strike against every type
+         * in the batch, and whatever the failed flush left behind is drained.
+         */
+        public void end() {
+            try {
+                buffers.endBatch();
+            } catch (Throwable t) {
+                LOGGER.warn("Failed to draw preview batch of {}", emitted, t);
+                if (threw.isEmpty()) {
+                    EntityRenderWatchdog watchdog = EntityRenderWatchdog.get();
+                    for (ResourceLocation id : emitted) {
+                        watchdog.recordSuspect(id, t);
+                    }
+                }
+                drain();
+            } finally {
+                dispatcher.setRenderShadow(true);
+
+                RenderSystem.getModelViewStack().popPose();
+                RenderSystem.applyModelViewMatrix();
+
+                Lighting.setupFor3DItems();
+            }
+        }
+
+        /**
+         * Flushes the render types the failed flush did not reach, so the shared buffers are not
+         * left mid-batch for the next frame. A second failure only means there is nothing left
+         * worth drawing.
+         */
+        private void drain() {
+            try {
+                buffers.endBatch();
+            } catch (Throwable t) {
+                LOGGER.debug("Dropped the rest of a failed preview batch", t);
+            }
+        }
     }
 }
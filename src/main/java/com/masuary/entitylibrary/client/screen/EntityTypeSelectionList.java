@@ -1,24 +1,52 @@
 package com.masuary.entitylibrary.client.screen;
 
+import com.masuary.entitylibrary.client.data.EntityCatalog;
 import com.masuary.entitylibrary.client.data.FavoritesManager;
 import com.masuary.entitylibrary.client.data.Theme;
 import com.masuary.entitylibrary.client.data.ThemeManager;
 import com.mojang.blaze3d.vertex.PoseStack;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.Font;
 import net.minecraft.client.gui.components.ObjectSelectionList;
+import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.TextComponent;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.world.entity.EntityType;
-import net.minecraftforge.registries.ForgeRegistries;
+import net.minecraft.util.Mth;
+import org.lwjgl.glfw.GLFW;
 
 import javax.annotation.Nullable;
 import java.util.List;
 
+/**
+ * A virtual list over catalog indices. The rows are an {@link IntList} owned by the screen; only
+ * the rows in the viewport are backed by an {@link Entry}, taken from a pool of
+ * {@code visibleRowCount() + 2} entries that are rebound to whichever index their row shows.
+ * The vanilla list keeps that pool as its children, so everything here that maps a position to
+ * a row is done against {@link #rows} instead of the children.
+ */
 public class EntityTypeSelectionList extends ObjectSelectionList<EntityTypeSelectionList.Entry> {
+    private static final int THUMBNAIL_SIZE = 20;
+    private static final int TEXT_LEFT = THUMBNAIL_SIZE + 6;
+    private static final String STAR = "\u2605 ";
+
     private final EntityLibraryScreen parent;
     private final Font font;
+    private EntityCatalog catalog;
+    /** Catalog index shown on each row. */
+    private IntList rows = IntLists.EMPTY_LIST;
+    private int selectedIndex = -1;
+    private int selectedRow = -1;
+    /**
+     * Row of each catalog index, filled on the first lookup after the rows change. Only entries
+     * stamped with the current {@link #stamp} are valid, so new rows never have to clear the map.
+     */
+    private int[] rowOfIndex = new int[0];
+    private int[] rowStamp = new int[0];
+    private int stamp;
+    private boolean rowMapFilled;
 
     public EntityTypeSelectionList(EntityLibraryScreen parent, Minecraft minecraft, int width, int height, int top, int bottom, int itemHeight) {
         super(minecraft, width, height, top, bottom, itemHeight);
@@ -28,28 +56,195 @@ public class EntityTypeSelectionList extends ObjectSelectionList<EntityTypeSelec
         this.setRenderTopAndBottom(false);
     }
 
-    public void setEntries(List<ResourceLocation> ids, @Nullable ResourceLocation selected) {
-        this.clearEntries();
-        for (ResourceLocation id : ids) {
-            this.addEntry(new Entry(id));
+    /**
+     * Shows the given rows. {@code indices} is kept as the list's model rather than copied, so the
+     * caller calls this again after changing it. Nothing is rebuilt per row: pooled entries rebind
+     * to their new rows as they are drawn, so refiltering costs the visible rows only.
+     *
+     * @param indices catalog indices to show, in order
+     * @param selectedIndex catalog index to select and scroll to, or -1
+     * @param selectedRow row of {@code selectedIndex} in {@code indices}, or -1 if it is not there
+     */
+    public void setEntries(EntityCatalog catalog, IntList indices, int selectedIndex, int selectedRow) {
+        if (catalog != this.catalog || this.rowOfIndex.length != catalog.size()) {
+            this.catalog = catalog;
+            this.rowOfIndex = new int[catalog.size()];
+            this.rowStamp = new int[catalog.size()];
+        }
+        this.rows = indices;
+        this.stamp++;
+        this.rowMapFilled = false;
+        this.selectedIndex = selectedIndex;
+        this.selectedRow = selectedRow;
+        this.setScrollAmount(this.getScrollAmount());
+        if (selectedRow >= 0) {
+            this.centerOnRow(selectedRow);
+        }
+    }
+
+    /**
+     * @return the row showing the catalog index, or -1 if it is filtered out
+     */
+    public int rowOf(int index) {
+        if (index == this.selectedIndex) {
+            return this.selectedRow;
+        }
+        if (index < 0 || index >= this.rowOfIndex.length) {
+            return -1;
+        }
+        if (!this.rowMapFilled) {
+            for (int row = 0; row < this.rows.size(); row++) {
+                int shown = this.rows.getInt(row);
+                this.rowOfIndex[shown] = row;
+                this.rowStamp[shown] = this.stamp;
+            }
+            this.rowMapFilled = true;
+        }
+        return this.rowStamp[index] == this.stamp ? this.rowOfIndex[index] : -1;
+    }
+
+    /**
+     * The pooled entry for a row, bound to the index on that row. Consecutive rows never share an
+     * entry, and no more rows than the pool holds are on screen at once.
+     */
+    @Override
+    protected Entry getEntry(int row) {
+        int poolSize = this.visibleRowCount() + 2;
+        List<Entry> pool = this.children();
+        while (pool.size() < poolSize) {
+            this.addEntry(new Entry());
+        }
+        Entry entry = pool.get(row % poolSize);
+        entry.bind(row, this.rows.getInt(row));
+        return entry;
+    }
+
+    // getItemCount() stays the pool size: the vanilla hit test reads children() by row, which
+    // would run past the pool otherwise. Scrolling only needs the height of every row.
+    @Override
+    protected int getMaxPosition() {
+        return this.rows.size() * this.itemHeight + this.headerHeight;
+    }
+
+    @Override
+    protected void renderList(PoseStack poseStack, int x, int y, int mouseX, int mouseY, float partialTicks) {
+        int rowWidth = this.getRowWidth();
+        int rowHeight = this.itemHeight - 4;
+        int hoveredRow = this.rowAt(mouseX, mouseY);
+        int first = this.firstVisibleRow();
+        int last = Math.min(this.rows.size(), first + this.visibleRowCount() + 1);
+        for (int row = first; row < last; row++) {
+            int top = y + row * this.itemHeight + this.headerHeight;
+            if (top + this.itemHeight < this.y0 || top > this.y1) {
+                continue;
+            }
+            Entry entry = this.getEntry(row);
+            if (entry.index == this.selectedIndex) {
+                int left = this.x0 + this.width / 2 - rowWidth / 2;
+                int right = this.x0 + this.width / 2 + rowWidth / 2;
+                fill(poseStack, left, top - 2, right, top + rowHeight + 2, 0xFF808080);
+                fill(poseStack, left + 1, top - 1, right - 1, top + rowHeight + 1, 0xFF000000);
+            }
+            entry.render(poseStack, row, top, x, rowWidth, rowHeight, mouseX, mouseY, row == hoveredRow, partialTicks);
+        }
+    }
+
+    /**
+     * @return the row under the mouse, or -1; the same hit test as the vanilla list, against {@link #rows}
+     */
+    private int rowAt(double mouseX, double mouseY) {
+        int halfWidth = this.getRowWidth() / 2;
+        int center = this.x0 + this.width / 2;
+        int offset = Mth.floor(mouseY - (double) this.y0) - this.headerHeight + (int) this.getScrollAmount() - 4;
+        int row = offset / this.itemHeight;
+        boolean inside = this.isMouseOver(mouseX, mouseY) && mouseX < this.getScrollbarPosition()
+                && mouseX >= center - halfWidth && mouseX <= center + halfWidth;
+        return inside && offset >= 0 && row < this.rows.size() ? row : -1;
+    }
+
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        int row = this.rowAt(mouseX, mouseY);
+        if (row >= 0) {
+            Entry entry = this.getEntry(row);
+            if (entry.mouseClicked(mouseX, mouseY, button)) {
+                this.setFocused(entry);
+                this.setDragging(true);
+                return true;
+            }
         }
+        // Scrollbar dragging; pooled entries turn down clicks that are not on their own row.
+        return super.mouseClicked(mouseX, mouseY, button);
+    }
 
-        if (selected != null) {
-            for (Entry e : this.children()) {
-                if (e.id.equals(selected)) {
-                    this.setSelected(e);
-                    this.centerScrollOn(e);
-                    break;
-                }
+    @Override
+    public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
+        if (keyCode == GLFW.GLFW_KEY_DOWN || keyCode == GLFW.GLFW_KEY_UP) {
+            int row = this.selectedRow < 0 ? 0 : this.selectedRow + (keyCode == GLFW.GLFW_KEY_DOWN ? 1 : -1);
+            if (row >= 0 && row < this.rows.size()) {
+                this.setSelected(this.getEntry(row));
+                this.ensureRowVisible(row);
             }
+            return true;
         }
+        return super.keyPressed(keyCode, scanCode, modifiers);
     }
 
+    /**
+     * Selection is kept as a catalog index, since the pooled entry that showed it is rebound as
+     * the list scrolls.
+     */
     @Override
     public void setSelected(@Nullable Entry entry) {
-        super.setSelected(entry);
-        if (entry != null) {
-            this.parent.selectEntityId(entry.id);
+        if (entry == null) {
+            this.selectedIndex = -1;
+            this.selectedRow = -1;
+            return;
+        }
+        this.parent.selectEntityId(entry.id);
+        this.selectedIndex = entry.index;
+        this.selectedRow = entry.row;
+    }
+
+    private void centerOnRow(int row) {
+        this.setScrollAmount((double) (row * this.itemHeight + this.itemHeight / 2 - (this.y1 - this.y0) / 2));
+    }
+
+    private void ensureRowVisible(int row) {
+        int top = this.y0 + 4 - (int) this.getScrollAmount() + row * this.itemHeight + this.headerHeight;
+        int above = top - this.y0 - 4 - this.itemHeight;
+        if (above < 0) {
+            this.setScrollAmount(this.getScrollAmount() + above);
+        }
+        int below = this.y1 - top - this.itemHeight - this.itemHeight;
+        if (below < 0) {
+            this.setScrollAmount(this.getScrollAmount() - below);
+        }
+    }
+
+    /**
+     * Position in the entry list of the topmost row in the viewport.
+     */
+    public int firstVisibleRow() {
+        return Math.max(0, (int) (this.getScrollAmount() / this.itemHeight));
+    }
+
+    public int visibleRowCount() {
+        return (this.y1 - this.y0) / this.itemHeight + 1;
+    }
+
+    /**
+     * Queues thumbnails for the rows just above and below the viewport so they are ready before
+     * they scroll in.
+     */
+    public void requestThumbnailsAround(ThumbnailAtlas atlas, int margin) {
+        int first = this.firstVisibleRow();
+        int last = first + this.visibleRowCount();
+        int count = this.rows.size();
+        for (int row = Math.max(0, first - margin); row < Math.min(count, last + margin); row++) {
+            if (row < first || row >= last) {
+                atlas.request(this.rows.getInt(row));
+            }
         }
     }
 
@@ -64,50 +259,85 @@ public class EntityTypeSelectionList extends ObjectSelectionList<EntityTypeSelec
     }
 
     public class Entry extends ObjectSelectionList.Entry<Entry> {
-        public final ResourceLocation id;
-        private final String displayName;
+        private ResourceLocation id;
+        private int index = -1;
+        private int row = -1;
+
+        // Text as last laid out, valid while the index, row width, favorite state and names are unchanged.
+        private int laidOutWidth = -1;
+        private int laidOutFavorites = -1;
+        private int laidOutNames = -1;
+        private boolean favorite;
+        private int nameOffset;
+        private String nameText = "";
+        private String idText = "";
+
+        private Entry() {}
+
+        private void bind(int row, int index) {
+            this.row = row;
+            if (index != this.index) {
+                this.index = index;
+                this.id = EntityTypeSelectionList.this.catalog.id(index);
+                this.laidOutWidth = -1;
+            }
+        }
+
+        private void layOut(Font font, int rowWidth) {
+            EntityCatalog catalog = EntityTypeSelectionList.this.catalog;
+            FavoritesManager favorites = FavoritesManager.get();
+            if (rowWidth == this.laidOutWidth && favorites.generation() == this.laidOutFavorites
+                    && catalog.nameGeneration() == this.laidOutNames) {
+                return;
+            }
+            this.laidOutWidth = rowWidth;
+            this.laidOutFavorites = favorites.generation();
+            this.laidOutNames = catalog.nameGeneration();
 
-        public Entry(ResourceLocation id) {
-            this.id = id;
-            EntityType<?> type = ForgeRegistries.ENTITIES.getValue(id);
-            this.displayName = type != null ? type.getDescription().getString() : id.getPath();
+            int maxTextWidth = rowWidth - 6 - TEXT_LEFT;
+            this.favorite = favorites.isFavorite(this.id);
+            this.nameOffset = this.favorite ? font.width(STAR) : 0;
+            this.nameText = font.plainSubstrByWidth(catalog.name(this.index), maxTextWidth - this.nameOffset);
+            this.idText = font.plainSubstrByWidth(this.id.toString(), maxTextWidth);
         }
 
         @Override
         public void render(PoseStack poseStack, int index, int y, int x, int rowWidth, int rowHeight, int mouseX, int mouseY, boolean isHovered, float partialTicks) {
             Theme theme = ThemeManager.get().currentTheme();
-            boolean isSelected = EntityTypeSelectionList.this.getSelected() == this;
+            boolean isSelected = this.index == EntityTypeSelectionList.this.selectedIndex;
             int nameColor = isSelected ? theme.listSelectedText() : theme.listUnselectedText();
             int idColor = isSelected ? theme.listSelectedIdText() : theme.listUnselectedIdText();
 
             Font font = EntityTypeSelectionList.this.font;
-            boolean isFavorite = FavoritesManager.get().isFavorite(this.id);
-            int maxTextWidth = rowWidth - 6;
-
-            String truncatedName = font.plainSubstrByWidth(this.displayName, maxTextWidth);
-            String truncatedId = font.plainSubstrByWidth(this.id.toString(), maxTextWidth);
-
-            if (isFavorite) {
-                String star = "\u2605 ";
-                int starWidth = font.width(star);
-                font.draw(poseStack, star, (float) (x + 3), (float) (y + 1), theme.favoriteStarColor());
-                String remainingName = font.plainSubstrByWidth(this.displayName, maxTextWidth - starWidth);
-                font.draw(poseStack, remainingName, (float) (x + 3 + starWidth), (float) (y + 1), nameColor);
-            } else {
-                font.draw(poseStack, truncatedName, (float) (x + 3), (float) (y + 1), nameColor);
+            this.layOut(font, rowWidth);
+            int textX = x + 3 + TEXT_LEFT;
+
+            ThumbnailAtlas.get().draw(poseStack, EntityTypeSelectionList.this.catalog, this.index, x + 2, y + 2, THUMBNAIL_SIZE);
+
+            if (this.favorite) {
+                font.draw(poseStack, STAR, (float) textX, (float) (y + 1), theme.favoriteStarColor());
             }
-            font.draw(poseStack, truncatedId, (float) (x + 3), (float) (y + 12), idColor);
+            font.draw(poseStack, this.nameText, (float) (textX + this.nameOffset), (float) (y + 1), nameColor);
+            font.draw(poseStack, this.idText, (float) textX, (float) (y + 12), idColor);
         }
 
         @Override
         public boolean mouseClicked(double mouseX, double mouseY, int button) {
+            if (this.row < 0 || EntityTypeSelectionList.this.rowAt(mouseX, mouseY) != this.row) {
+                return false;
+            }
+            if (Screen.hasControlDown()) {
+                EntityTypeSelectionList.this.parent.toggleCompared(this.id);
+                return true;
+            }
             EntityTypeSelectionList.this.setSelected(this);
             return true;
         }
 
         @Override
         public Component getNarration() {
-            return new TextComponent(this.displayName);
+            // The vanilla hover test can land on a pooled entry that is not bound to any row.
+            return this.index < 0 ? TextComponent.EMPTY : new TextComponent(EntityTypeSelectionList.this.catalog.name(this.index));
         }
     }
 }
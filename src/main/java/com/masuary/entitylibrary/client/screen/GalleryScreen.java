@@ -0,0 +1,542 @@
+package com.masuary.entitylibrary.client.screen;
+
+import com.masuary.entitylibrary.EntityLibraryMod;
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.data.EntityConstructionWatchdog;
+import com.masuary.entitylibrary.client.data.PreviewEntityPool;
+import com.masuary.entitylibrary.client.data.Theme;
+import com.masuary.entitylibrary.client.data.ThemeManager;
+import com.mojang.blaze3d.pipeline.RenderTarget;
+import com.mojang.blaze3d.pipeline.TextureTarget;
+import com.mojang.blaze3d.platform.Window;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.BufferUploader;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.Tesselator;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.components.Button;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.client.renderer.GameRenderer;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.TranslatableComponent;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import org.lwjgl.opengl.GL11;
+
+import javax.annotation.Nullable;
+
+/**
+ * Scrollable grid of live entity previews for the library's current filter results. Only cells
+ * inside the viewport hold an entity; they are taken from {@link PreviewEntityPool} as they scroll
+ * in and handed back as they scroll out. The time spent rendering live models is tracked per
+ * quality level, and when the grid runs over its budget it first stops animating and draws the
+ * models once into an offscreen layer that is reused until the grid changes, then draws atlas
+ * thumbnails instead of live models for everything but the hovered cell.
+ */
+public class GalleryScreen extends Screen {
+    private static final String TRANSLATION_PREFIX = "screen." + EntityLibraryMod.MODID + ".gallery.";
+
+    private static final int CELL_SIZE = 64;
+    private static final int GRID_LEFT = 10;
+    private static final int GRID_TOP = 28;
+    private static final int SCROLL_STEP = CELL_SIZE / 2;
+    private static final long CONSTRUCT_BUDGET_NANOS = 3_000_000L;
+    private static final long FRAME_BUDGET_NANOS = 8_000_000L;
+    private static final int QUALITY_COOLDOWN_FRAMES = 60;
+    private static final float COST_SMOOTHING = 0.1F;
+    /** Step back up only when the level above is projected to use at most this share of the budget. */
+    private static final float STEP_UP_SHARE = 0.5F;
+    /** Applied to a stale estimate each time stepping up is refused, so the level is eventually retried. */
+    private static final float STALE_ESTIMATE_DECAY = 0.8F;
+
+    private enum Quality {
+        ANIMATED("animated"),
+        STILL("still"),
+        THUMBNAILS("thumbnails");
+
+        private final String key;
+
+        Quality(String key) {
+            this.key = key;
+        }
+    }
+
+    private final EntityLibraryScreen parent;
+    private final EntityCatalog catalog;
+    private final IntList indices;
+
+    private final Int2ObjectMap<Entity> liveCells = new Int2ObjectOpenHashMap<>();
+    private final IntSet unavailable = new IntOpenHashSet();
+    /** Catalog indices of the visible range, reused by {@link #releaseHiddenCells}. */
+    private final IntSet visibleCells = new IntOpenHashSet();
+    private int releasedFirst = -1;
+    private int releasedLast = -1;
+    private int columns = 1;
+    private int gridRight;
+    private int gridBottom;
+    private double scrollAmount;
+
+    private Quality quality = Quality.ANIMATED;
+    /** Smoothed live-render time per visible cell per frame, for each quality level. */
+    private final float[] averageCellNanos = new float[Quality.values().length];
+    private int framesSinceQualityChange;
+    private int reservedCells;
+
+    /** Offscreen layer holding the still models; redrawn only when {@link #stillDirty}. */
+    @Nullable
+    private RenderTarget stillLayer;
+    private boolean stillDirty = true;
+
+    private final TextureRenderer.Chrome chrome = new TextureRenderer.Chrome();
+    private final TextureRenderer.Chrome.Layout chromeLayout = this::buildChrome;
+    private String qualityText = "";
+    private int qualityTextX;
+    private String[] cellNames = new String[0];
+    private int cellNamesGeneration = -1;
+    private int tooltipPosition = -1;
+    @Nullable
+    private Component tooltip;
+
+    /**
+     * @param indices catalog indices to show, in order
+     */
+    public GalleryScreen(EntityLibraryScreen parent, EntityCatalog catalog, IntList indices) {
+        super(new TranslatableComponent(TRANSLATION_PREFIX + "title"));
+        this.parent = parent;
+        this.catalog = catalog;
+        this.indices = new IntArrayList(indices.size());
+        for (int i = 0; i < indices.size(); i++) {
+            int index = indices.getInt(i);
+            // Only living types can be previewed, so known non-living ones would just be empty cells.
+            if (!catalog.isClassified(index) || catalog.isLiving(index)) {
+                this.indices.add(index);
+            }
+        }
+    }
+
+    @Override
+    protected void init() {
+        this.columns = Math.max(1, (this.width - GRID_LEFT * 2) / CELL_SIZE);
+        this.gridRight = GRID_LEFT + this.columns * CELL_SIZE;
+        this.gridBottom = this.height - 36;
+        this.scrollAmount = Mth.clamp(this.scrollAmount, 0.0D, maxScroll());
+
+        // Keep every on-screen entity in the pool, plus a row of slack while scrolling, as far as
+        // the pool's memory cap allows; cells past the reservation show thumbnails.
+        this.reservedCells = PreviewEntityPool.get().reserve((visibleRows() + 1) * this.columns);
+        updateQualityText();
+        this.stillDirty = true;
+
+        this.addRenderableWidget(new Button(
+                this.width / 2 - 40, this.height - 28, 80, 20,
+                new TranslatableComponent(TRANSLATION_PREFIX + "back"),
+                b -> this.onClose()
+        ));
+    }
+
+    private int rowCount() {
+        return (this.indices.size() + this.columns - 1) / this.columns;
+    }
+
+    private int visibleRows() {
+        return (this.gridBottom - GRID_TOP + CELL_SIZE - 1) / CELL_SIZE + 1;
+    }
+
+    private double maxScroll() {
+        return Math.max(0, rowCount() * CELL_SIZE - (this.gridBottom - GRID_TOP));
+    }
+
+    private int firstVisiblePosition() {
+        return (int) (this.scrollAmount / CELL_SIZE) * this.columns;
+    }
+
+    private int lastVisiblePosition() {
+        return Math.min(this.indices.size(), firstVisiblePosition() + visibleRows() * this.columns);
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.level == null) {
+            return;
+        }
+
+        int first = firstVisiblePosition();
+        int last = lastVisiblePosition();
+        releaseHiddenCells(first, last);
+
+        PreviewEntityPool pool = PreviewEntityPool.get();
+        EntityConstructionWatchdog watchdog = EntityConstructionWatchdog.get();
+        long deadline = System.nanoTime() + CONSTRUCT_BUDGET_NANOS;
+        for (int position = first; position < last && System.nanoTime() < deadline; position++) {
+            int index = this.indices.getInt(position);
+            Entity live = this.liveCells.get(index);
+            if ((live != null && !live.isRemoved()) || this.unavailable.contains(index)) {
+                continue;
+            }
+            if (this.liveCells.size() >= this.reservedCells) {
+                break;
+            }
+            if (watchdog.isQuarantined(this.catalog.id(index))) {
+                this.unavailable.add(index);
+                continue;
+            }
+            try {
+                Entity entity = pool.obtain(this.catalog.id(index), mc.level);
+                if (entity instanceof LivingEntity) {
+                    this.liveCells.put(index, entity);
+                    this.stillDirty = true;
+                } else {
+                    this.unavailable.add(index);
+                }
+            } catch (Throwable t) {
+                this.unavailable.add(index);
+            }
+        }
+
+        if (this.quality == Quality.ANIMATED) {
+            for (Entity entity : this.liveCells.values()) {
+                if (entity instanceof LivingEntity living) {
+                    living.tickCount++;
+                    living.animationSpeed = 0.6F;
+                    living.animationPosition += 0.6F;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the references of cells that scrolled out. The entities stay in the pool, so scrolling
+     * back soon reuses them; the pool discards them once they age out.
+     */
+    private void releaseHiddenCells(int first, int last) {
+        // Cells are only created inside the visible range, so nothing can be hidden until it moves.
+        if (first == this.releasedFirst && last == this.releasedLast) {
+            return;
+        }
+        this.releasedFirst = first;
+        this.releasedLast = last;
+        IntSet visible = this.visibleCells;
+        visible.clear();
+        for (int position = first; position < last; position++) {
+            visible.add(this.indices.getInt(position));
+        }
+        ObjectIterator<Int2ObjectMap.Entry<Entity>> iterator = this.liveCells.int2ObjectEntrySet().iterator();
+        while (iterator.hasNext()) {
+            if (!visible.contains(iterator.next().getIntKey())) {
+                iterator.remove();
+                this.stillDirty = true;
+            }
+        }
+    }
+
+    private void buildChrome(TextureRenderer.Chrome.Builder builder) {
+        builder.background(0, 0, this.width, this.height)
+                .panel(GRID_LEFT - 4, GRID_TOP - 4, this.gridRight - GRID_LEFT + 8, this.gridBottom - GRID_TOP + 8);
+    }
+
+    private void updateQualityText() {
+        this.qualityText = new TranslatableComponent(TRANSLATION_PREFIX + "quality." + this.quality.key).getString();
+        this.qualityTextX = this.gridRight - this.font.width(this.qualityText);
+    }
+
+    /**
+     * The cell's name cut to the cell width, measured once per name generation.
+     */
+    private String cellName(int position) {
+        if (this.cellNamesGeneration != this.catalog.nameGeneration() || this.cellNames.length != this.indices.size()) {
+            this.cellNames = new String[this.indices.size()];
+            this.cellNamesGeneration = this.catalog.nameGeneration();
+            this.tooltipPosition = -1;
+        }
+        String name = this.cellNames[position];
+        if (name == null) {
+            name = this.font.plainSubstrByWidth(this.catalog.name(this.indices.getInt(position)), CELL_SIZE - 4);
+            this.cellNames[position] = name;
+        }
+        return name;
+    }
+
+    @Override
+    public void render(PoseStack poseStack, int mouseX, int mouseY, float partialTicks) {
+        Theme theme = ThemeManager.get().currentTheme();
+
+        this.chrome.draw(poseStack, ((long) this.width << 32) | this.height, this.chromeLayout);
+        this.font.draw(poseStack, this.title, GRID_LEFT, 10, theme.titleColor());
+        this.font.draw(poseStack, this.qualityText, (float) this.qualityTextX, 10.0F, theme.hintText());
+
+        int first = firstVisiblePosition();
+        int last = lastVisiblePosition();
+        int hovered = positionAt(mouseX, mouseY);
+
+        // Thumbnails must be produced outside the scissor, before the cells that draw them.
+        ThumbnailAtlas thumbnails = ThumbnailAtlas.get();
+        thumbnails.renderPending(this.catalog);
+
+        Window window = Minecraft.getInstance().getWindow();
+        double scale = window.getGuiScale();
+        GL11.glEnable(GL11.GL_SCISSOR_TEST);
+        GL11.glScissor((int) (GRID_LEFT * scale), (int) ((this.height - this.gridBottom) * scale),
+                (int) ((this.gridRight - GRID_LEFT) * scale), (int) ((this.gridBottom - GRID_TOP) * scale));
+
+        for (int position = first; position < last; position++) {
+            int index = this.indices.getInt(position);
+            int cellX = cellX(position);
+            int cellY = cellY(position);
+
+            if (position == hovered) {
+                hLine(poseStack, cellX, cellX + CELL_SIZE - 1, cellY, theme.panelBorder());
+                hLine(poseStack, cellX, cellX + CELL_SIZE - 1, cellY + CELL_SIZE - 1, theme.panelBorder());
+                vLine(poseStack, cellX, cellY, cellY + CELL_SIZE - 1, theme.panelBorder());
+                vLine(poseStack, cellX + CELL_SIZE - 1, cellY, cellY + CELL_SIZE - 1, theme.panelBorder());
+            }
+            boolean drawsLive = liveEntity(index) != null && (this.quality != Quality.THUMBNAILS || position == hovered);
+            if (!drawsLive && !thumbnails.draw(poseStack, this.catalog, index, cellX + CELL_SIZE / 2 - 16, cellY + 8, 32)) {
+                drawCenteredString(poseStack, this.font, "?", cellX + CELL_SIZE / 2, cellY + CELL_SIZE / 2 - 8, theme.hintText());
+            }
+            drawCenteredString(poseStack, this.font, cellName(position), cellX + CELL_SIZE / 2, cellY + CELL_SIZE - 10, theme.listUnselectedText());
+        }
+
+        long liveNanos = switch (this.quality) {
+            case ANIMATED -> renderLiveCells(first, last);
+            case STILL -> renderStillLayer(first, last, window);
+            case THUMBNAILS -> {
+                LivingEntity entity = hovered >= 0 ? liveEntity(this.indices.getInt(hovered)) : null;
+                if (entity != null) {
+                    renderCell(this.indices.getInt(hovered), entity, cellX(hovered), cellY(hovered));
+                }
+                yield 0L;
+            }
+        };
+        GL11.glDisable(GL11.GL_SCISSOR_TEST);
+
+        for (int position = last; position < Math.min(this.indices.size(), last + this.columns); position++) {
+            thumbnails.request(this.indices.getInt(position));
+        }
+        updateQuality(liveNanos, last - first);
+
+        super.render(poseStack, mouseX, mouseY, partialTicks);
+
+        if (hovered >= 0) {
+            if (hovered != this.tooltipPosition) {
+                int index = this.indices.getInt(hovered);
+                this.tooltipPosition = hovered;
+                this.tooltip = new TranslatableComponent(TRANSLATION_PREFIX + "hover",
+                        this.catalog.name(index), this.catalog.id(index).toString());
+            }
+            renderTooltip(poseStack, this.tooltip, mouseX, mouseY);
+        }
+    }
+
+    private int cellX(int position) {
+        return GRID_LEFT + position % this.columns * CELL_SIZE;
+    }
+
+    private int cellY(int position) {
+        return GRID_TOP + position / this.columns * CELL_SIZE - (int) this.scrollAmount;
+    }
+
+    @Nullable
+    private LivingEntity liveEntity(int index) {
+        Entity entity = this.liveCells.get(index);
+        return entity instanceof LivingEntity living && !entity.isRemoved() ? living : null;
+    }
+
+    /**
+     * Draws every visible live cell in one batch.
+     *
+     * @return nanoseconds spent on the models alone
+     */
+    private long renderLiveCells(int first, int last) {
+        long start = System.nanoTime();
+        EntityPreviewRenderer.Batch batch = EntityPreviewRenderer.begin();
+        try {
+            for (int position = first; position < last; position++) {
+                int index = this.indices.getInt(position);
+                LivingEntity entity = liveEntity(index);
+                if (entity != null && !addCell(batch, entity, cellX(position), cellY(position))) {
+                    markUnavailable(index);
+                }
+            }
+        } finally {
+            batch.end();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Redraws the still models into the offscreen layer if the grid changed, then composites it.
+     *
+     * @return nanoseconds spent redrawing the models; zero when the layer was reused
+     */
+    private long renderStillLayer(int first, int last, Window window) {
+        Minecraft mc = Minecraft.getInstance();
+        if (this.stillLayer == null) {
+            this.stillLayer = new TextureTarget(window.getWidth(), window.getHeight(), true, Minecraft.ON_OSX);
+            this.stillLayer.setClearColor(0.0F, 0.0F, 0.0F, 0.0F);
+            this.stillDirty = true;
+        } else if (this.stillLayer.width != window.getWidth() || this.stillLayer.height != window.getHeight()) {
+            this.stillLayer.resize(window.getWidth(), window.getHeight(), Minecraft.ON_OSX);
+            this.stillDirty = true;
+        }
+
+        long elapsed = 0L;
+        if (this.stillDirty) {
+            this.stillDirty = false;
+            this.stillLayer.clear(Minecraft.ON_OSX);
+            this.stillLayer.bindWrite(true);
+            try {
+                elapsed = renderLiveCells(first, last);
+            } finally {
+                mc.getMainRenderTarget().bindWrite(true);
+            }
+        }
+
+        // Framebuffer rows run bottom-up, so the layer is drawn with its V axis flipped.
+        RenderSystem.setShader(GameRenderer::getPositionTexShader);
+        RenderSystem.setShaderTexture(0, this.stillLayer.getColorTextureId());
+        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+        BufferBuilder buffer = Tesselator.getInstance().getBuilder();
+        buffer.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_TEX);
+        buffer.vertex(0.0D, this.height, 0.0D).uv(0.0F, 0.0F).endVertex();
+        buffer.vertex(this.width, this.height, 0.0D).uv(1.0F, 0.0F).endVertex();
+        buffer.vertex(this.width, 0.0D, 0.0D).uv(1.0F, 1.0F).endVertex();
+        buffer.vertex(0.0D, 0.0D, 0.0D).uv(0.0F, 1.0F).endVertex();
+        buffer.end();
+        BufferUploader.end(buffer);
+        RenderSystem.disableBlend();
+        return elapsed;
+    }
+
+    /**
+     * @return false if the renderer is quarantined or failed, in which case the cell falls back to
+     * its thumbnail from then on
+     */
+    private boolean renderCell(int index, LivingEntity entity, int cellX, int cellY) {
+        EntityPreviewRenderer.Batch batch = EntityPreviewRenderer.begin();
+        try {
+            if (addCell(batch, entity, cellX, cellY)) {
+                return true;
+            }
+        } finally {
+            batch.end();
+        }
+        markUnavailable(index);
+        return false;
+    }
+
+    private static boolean addCell(EntityPreviewRenderer.Batch batch, LivingEntity entity, int cellX, int cellY) {
+        float extent = Math.max(0.5F, Math.max(entity.getBbHeight(), entity.getBbWidth()));
+        int scale = Math.max(1, (int) ((CELL_SIZE - 20) / extent));
+        return batch.add(cellX + CELL_SIZE / 2, cellY + CELL_SIZE - 14, scale, -0.6F, 0.0F, entity);
+    }
+
+    private void markUnavailable(int index) {
+        this.unavailable.add(index);
+        this.liveCells.remove(index);
+        this.stillDirty = true;
+    }
+
+    /**
+     * Tracks the smoothed live-render cost of the current quality level and steps down when the
+     * visible cells would not fit the frame budget. Stepping back up needs the level above to be
+     * projected well inside the budget; an estimate that keeps refusing decays, so the level is
+     * retried once conditions may have changed. Changes and retries are spaced out so the grid
+     * does not flicker between modes.
+     */
+    private void updateQuality(long liveNanos, int visibleCells) {
+        if (visibleCells == 0) {
+            return;
+        }
+        int level = this.quality.ordinal();
+        // In thumbnail mode only the hovered cell is live, which says nothing about the grid.
+        if (this.quality != Quality.THUMBNAILS) {
+            float cellNanos = (float) liveNanos / visibleCells;
+            this.averageCellNanos[level] = this.averageCellNanos[level] == 0.0F
+                    ? cellNanos
+                    : this.averageCellNanos[level] + (cellNanos - this.averageCellNanos[level]) * COST_SMOOTHING;
+        }
+        if (++this.framesSinceQualityChange < QUALITY_COOLDOWN_FRAMES) {
+            return;
+        }
+        this.framesSinceQualityChange = 0;
+
+        Quality next = this.quality;
+        if (this.quality != Quality.THUMBNAILS && this.averageCellNanos[level] * visibleCells > FRAME_BUDGET_NANOS) {
+            next = Quality.values()[level + 1];
+        } else if (this.quality != Quality.ANIMATED) {
+            float projected = this.averageCellNanos[level - 1] * visibleCells;
+            if (projected <= FRAME_BUDGET_NANOS * STEP_UP_SHARE) {
+                next = Quality.values()[level - 1];
+            } else {
+                this.averageCellNanos[level - 1] *= STALE_ESTIMATE_DECAY;
+            }
+        }
+        if (next != this.quality) {
+            this.quality = next;
+            this.stillDirty = true;
+            updateQualityText();
+        }
+    }
+
+    /**
+     * @return the grid position under the mouse, or -1
+     */
+    private int positionAt(double mouseX, double mouseY) {
+        if (mouseX < GRID_LEFT || mouseX >= this.gridRight || mouseY < GRID_TOP || mouseY >= this.gridBottom) {
+            return -1;
+        }
+        int column = (int) (mouseX - GRID_LEFT) / CELL_SIZE;
+        int row = (int) ((mouseY - GRID_TOP + this.scrollAmount) / CELL_SIZE);
+        int position = row * this.columns + column;
+        return position < this.indices.size() ? position : -1;
+    }
+
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        int position = positionAt(mouseX, mouseY);
+        if (position >= 0 && button == 0) {
+            this.parent.selectEntityId(this.catalog.id(this.indices.getInt(position)));
+            this.onClose();
+            return true;
+        }
+        return super.mouseClicked(mouseX, mouseY, button);
+    }
+
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double delta) {
+        this.scrollAmount = Mth.clamp(this.scrollAmount - delta * SCROLL_STEP, 0.0D, maxScroll());
+        this.stillDirty = true;
+        return true;
+    }
+
+    @Override
+    public void removed() {
+        this.chrome.close();
+        if (this.stillLayer != null) {
+            this.stillLayer.destroyBuffers();
+            this.stillLayer = null;
+        }
+    }
+
+    @Override
+    public void onClose() {
+        this.liveCells.clear();
+        PreviewEntityPool.get().reserve(0);
+        Minecraft.getInstance().setScreen(this.parent);
+    }
+}
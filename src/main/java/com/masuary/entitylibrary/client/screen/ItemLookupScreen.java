@@ -0,0 +1,272 @@
+package com.masuary.entitylibrary.client.screen;
+
+import com.masuary.entitylibrary.EntityLibraryMod;
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.data.LootIndex;
+import com.masuary.entitylibrary.client.data.Theme;
+import com.masuary.entitylibrary.client.data.ThemeManager;
+import com.mojang.blaze3d.vertex.PoseStack;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.components.Button;
+import net.minecraft.client.gui.components.EditBox;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.network.chat.TranslatableComponent;
+import net.minecraft.util.Mth;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Answers "which mobs drop this item?" from the {@link LootIndex}. The left column lists every
+ * item some entity drops, filtered by the search box; picking one lists the entities that drop it
+ * on the right, read straight from the index's reverse rows.
+ */
+public class ItemLookupScreen extends Screen {
+    private static final String TRANSLATION_PREFIX = "screen." + EntityLibraryMod.MODID + ".items.";
+
+    private static final int MARGIN = 10;
+    private static final int LIST_TOP = 50;
+    private static final int ROW_HEIGHT = 12;
+
+    private final EntityLibraryScreen parent;
+    private final EntityCatalog catalog;
+
+    @Nullable
+    private LootIndex.Snapshot loot;
+    private String[] itemNames = new String[0];
+    private String[] itemRows = new String[0];
+    private String[] lowercaseIds = new String[0];
+    private int namesGeneration = -1;
+    private final IntList sortedItems = new IntArrayList();
+    private final IntList shownItems = new IntArrayList();
+    private int selectedItem = -1;
+
+    private EditBox searchBox;
+    private Button filterButton;
+    private int columnWidth;
+    private int listBottom;
+    private int itemScroll;
+    private int entityScroll;
+    private final TextureRenderer.Chrome chrome = new TextureRenderer.Chrome();
+
+    public ItemLookupScreen(EntityLibraryScreen parent, EntityCatalog catalog) {
+        super(new TranslatableComponent(TRANSLATION_PREFIX + "title"));
+        this.parent = parent;
+        this.catalog = catalog;
+    }
+
+    @Override
+    protected void init() {
+        this.columnWidth = (this.width - MARGIN * 3) / 2;
+        this.listBottom = this.height - 36;
+
+        String query = this.searchBox != null ? this.searchBox.getValue() : "";
+        this.searchBox = new EditBox(this.font, MARGIN, 24, this.columnWidth, 18,
+                new TranslatableComponent(TRANSLATION_PREFIX + "search"));
+        this.searchBox.setMaxLength(128);
+        this.searchBox.setValue(query);
+        this.searchBox.setResponder(s -> applySearch());
+        this.addRenderableWidget(this.searchBox);
+
+        this.filterButton = new Button(
+                MARGIN * 2 + this.columnWidth, 23, this.columnWidth, 20,
+                new TranslatableComponent(TRANSLATION_PREFIX + "filter"),
+                b -> {
+                    if (this.loot != null && this.selectedItem >= 0) {
+                        this.parent.showDropsOf(this.loot.item(this.selectedItem));
+                        this.onClose();
+                    }
+                }
+        );
+        this.filterButton.active = this.selectedItem >= 0;
+        this.addRenderableWidget(this.filterButton);
+
+        this.addRenderableWidget(new Button(
+                this.width / 2 - 40, this.height - 28, 80, 20,
+                new TranslatableComponent(TRANSLATION_PREFIX + "back"),
+                b -> this.onClose()
+        ));
+
+        loadIndex();
+    }
+
+    /**
+     * Picks up the index once its background pass has finished, or a newer one after a data pack
+     * reload, and names and sorts its items.
+     */
+    private void loadIndex() {
+        LootIndex.Snapshot snapshot = LootIndex.get().snapshot(this.catalog);
+        if (snapshot == null || snapshot == this.loot) {
+            return;
+        }
+        this.loot = snapshot;
+        this.selectedItem = -1;
+        this.entityScroll = 0;
+        if (this.filterButton != null) {
+            this.filterButton.active = false;
+        }
+        int itemCount = snapshot.itemCount();
+        this.lowercaseIds = new String[itemCount];
+        for (int item = 0; item < itemCount; item++) {
+            this.lowercaseIds[item] = snapshot.item(item).toString().toLowerCase(Locale.ROOT);
+        }
+        nameItems();
+    }
+
+    /**
+     * Names and sorts the items for the current language, then filters them again.
+     */
+    private void nameItems() {
+        LootIndex.Snapshot snapshot = this.loot;
+        int itemCount = snapshot.itemCount();
+        this.namesGeneration = this.catalog.nameGeneration();
+        this.itemNames = new String[itemCount];
+        this.itemRows = new String[itemCount];
+        this.sortedItems.clear();
+        for (int item = 0; item < itemCount; item++) {
+            this.itemNames[item] = snapshot.itemName(item);
+            this.itemRows[item] = this.itemNames[item] + " (" + snapshot.droppedByCount(item) + ")";
+            this.sortedItems.add(item);
+        }
+        this.sortedItems.sort((a, b) -> this.itemNames[a].compareToIgnoreCase(this.itemNames[b]));
+        applySearch();
+    }
+
+    private void applySearch() {
+        if (this.loot == null) {
+            return;
+        }
+        String needle = this.searchBox.getValue().trim().toLowerCase(Locale.ROOT);
+        String[] lowercaseNames = this.loot.lowercaseNames();
+        this.shownItems.clear();
+        for (int i = 0; i < this.sortedItems.size(); i++) {
+            int item = this.sortedItems.getInt(i);
+            if (needle.isEmpty() || lowercaseNames[item].contains(needle) || this.lowercaseIds[item].contains(needle)) {
+                this.shownItems.add(item);
+            }
+        }
+        this.itemScroll = 0;
+    }
+
+    private int visibleRows() {
+        return Math.max(1, (this.listBottom - LIST_TOP) / ROW_HEIGHT);
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        this.searchBox.tick();
+        loadIndex();
+        if (this.loot != null && this.namesGeneration != this.catalog.nameGeneration()) {
+            nameItems();
+        }
+    }
+
+    @Override
+    public void render(PoseStack poseStack, int mouseX, int mouseY, float partialTicks) {
+        Theme theme = ThemeManager.get().currentTheme();
+        int rightLeft = MARGIN * 2 + this.columnWidth;
+
+        this.chrome.draw(poseStack, ((long) this.width << 32) | this.height, builder -> builder
+                .background(0, 0, this.width, this.height)
+                .panel(MARGIN - 4, LIST_TOP - 4, this.columnWidth + 8, this.listBottom - LIST_TOP + 8)
+                .panel(rightLeft - 4, LIST_TOP - 4, this.columnWidth + 8, this.listBottom - LIST_TOP + 8));
+        this.font.draw(poseStack, this.title, MARGIN, 10, theme.titleColor());
+
+        if (this.loot == null) {
+            String key = Minecraft.getInstance().getSingleplayerServer() == null ? "unavailable" : "indexing";
+            drawCenteredString(poseStack, this.font, new TranslatableComponent(TRANSLATION_PREFIX + key),
+                    this.width / 2, (LIST_TOP + this.listBottom) / 2, theme.noSelectionText());
+            super.render(poseStack, mouseX, mouseY, partialTicks);
+            return;
+        }
+
+        int rows = visibleRows();
+        int hoveredItem = rowAt(mouseX, mouseY, MARGIN, this.itemScroll, this.shownItems.size());
+        for (int row = 0; row < rows && this.itemScroll + row < this.shownItems.size(); row++) {
+            int item = this.shownItems.getInt(this.itemScroll + row);
+            int color = item == this.selectedItem || this.itemScroll + row == hoveredItem
+                    ? theme.listSelectedText() : theme.listUnselectedText();
+            String text = this.font.plainSubstrByWidth(this.itemRows[item], this.columnWidth);
+            this.font.draw(poseStack, text, (float) MARGIN, (float) (LIST_TOP + row * ROW_HEIGHT), color);
+        }
+
+        if (this.selectedItem < 0) {
+            drawCenteredString(poseStack, this.font, new TranslatableComponent(TRANSLATION_PREFIX + "no_selection"),
+                    rightLeft + this.columnWidth / 2, (LIST_TOP + this.listBottom) / 2, theme.noSelectionText());
+        } else {
+            int count = this.loot.droppedByCount(this.selectedItem);
+            int hoveredEntity = rowAt(mouseX, mouseY, rightLeft, this.entityScroll, count);
+            for (int row = 0; row < rows && this.entityScroll + row < count; row++) {
+                int index = this.loot.droppedBy(this.selectedItem, this.entityScroll + row);
+                int color = this.entityScroll + row == hoveredEntity ? theme.listSelectedText() : theme.listUnselectedText();
+                String text = this.font.plainSubstrByWidth(this.catalog.name(index), this.columnWidth);
+                this.font.draw(poseStack, text, (float) rightLeft, (float) (LIST_TOP + row * ROW_HEIGHT), color);
+            }
+        }
+
+        super.render(poseStack, mouseX, mouseY, partialTicks);
+    }
+
+    /**
+     * @return the position in the column's rows under the mouse, or -1
+     */
+    private int rowAt(double mouseX, double mouseY, int columnLeft, int scroll, int rowCount) {
+        if (mouseX < columnLeft || mouseX >= columnLeft + this.columnWidth || mouseY < LIST_TOP || mouseY >= this.listBottom) {
+            return -1;
+        }
+        int position = scroll + (int) (mouseY - LIST_TOP) / ROW_HEIGHT;
+        return position < rowCount ? position : -1;
+    }
+
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        if (this.loot != null && button == 0) {
+            int itemRow = rowAt(mouseX, mouseY, MARGIN, this.itemScroll, this.shownItems.size());
+            if (itemRow >= 0) {
+                this.selectedItem = this.shownItems.getInt(itemRow);
+                this.entityScroll = 0;
+                this.filterButton.active = true;
+                return true;
+            }
+            if (this.selectedItem >= 0) {
+                int entityRow = rowAt(mouseX, mouseY, MARGIN * 2 + this.columnWidth, this.entityScroll,
+                        this.loot.droppedByCount(this.selectedItem));
+                if (entityRow >= 0) {
+                    this.parent.selectEntityId(this.catalog.id(this.loot.droppedBy(this.selectedItem, entityRow)));
+                    this.onClose();
+                    return true;
+                }
+            }
+        }
+        return super.mouseClicked(mouseX, mouseY, button);
+    }
+
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double delta) {
+        if (this.loot == null) {
+            return false;
+        }
+        int step = delta > 0 ? -3 : 3;
+        if (mouseX < MARGIN * 2 + this.columnWidth) {
+            int max = Math.max(0, this.shownItems.size() - visibleRows());
+            this.itemScroll = Mth.clamp(this.itemScroll + step, 0, max);
+        } else if (this.selectedItem >= 0) {
+            int max = Math.max(0, this.loot.droppedByCount(this.selectedItem) - visibleRows());
+            this.entityScroll = Mth.clamp(this.entityScroll + step, 0, max);
+        }
+        return true;
+    }
+
+    @Override
+    public void removed() {
+        this.chrome.close();
+    }
+
+    @Override
+    public void onClose() {
+        Minecraft.getInstance().setScreen(this.parent);
+    }
+}
@@ -28,6 +28,8 @@ public class NbtEditorScreen extends Screen {
     private final Map<String, Button> tagButtons = new LinkedHashMap<>();
     private EditBox customNameInput;
     private String commandPreview = "";
+    private final TextureRenderer.Chrome chrome = new TextureRenderer.Chrome();
+    private final TextureRenderer.Chrome.Layout chromeLayout = this::buildChrome;
 
     public NbtEditorScreen(EntityLibraryScreen parent, ResourceLocation entityId, String baseSummonCommand) {
         super(new TranslatableComponent(TRANSLATION_PREFIX + "title"));
@@ -140,11 +142,15 @@ public class NbtEditorScreen extends Screen {
         }
     }
 
+    private void buildChrome(TextureRenderer.Chrome.Builder builder) {
+        builder.background(0, 0, this.width, this.height);
+    }
+
     @Override
     public void render(PoseStack poseStack, int mouseX, int mouseY, float partialTicks) {
         Theme theme = ThemeManager.get().currentTheme();
 
-        TextureRenderer.drawTilingBackground(poseStack, 0, 0, this.width, this.height);
+        this.chrome.draw(poseStack, ((long) this.width << 32) | this.height, this.chromeLayout);
 
         drawCenteredString(poseStack, this.font, this.title, this.width / 2, 14, theme.titleColor());
 
@@ -167,6 +173,11 @@ public class NbtEditorScreen extends Screen {
         }
     }
 
+    @Override
+    public void removed() {
+        this.chrome.close();
+    }
+
     @Override
     public void onClose() {
         Minecraft.getInstance().setScreen(parent);
@@ -2,10 +2,18 @@ package com.masuary.entitylibrary.client.screen;
 
 import com.masuary.entitylibrary.client.data.ThemeManager;
 import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
 import com.mojang.blaze3d.vertex.PoseStack;
-import net.minecraft.client.gui.GuiComponent;
+import com.mojang.blaze3d.vertex.Tesselator;
+import com.mojang.blaze3d.vertex.VertexBuffer;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import com.mojang.math.Matrix4f;
+import net.minecraft.client.renderer.GameRenderer;
 import net.minecraft.resources.ResourceLocation;
 
+import javax.annotation.Nullable;
+
 public final class TextureRenderer {
     private static final ResourceLocation DARK_TEXTURE = ResourceLocation.tryParse("entitylibrary:textures/gui/gui_dark.png");
     private static final ResourceLocation LIGHT_TEXTURE = ResourceLocation.tryParse("entitylibrary:textures/gui/gui_light.png");
@@ -26,53 +34,57 @@ public final class TextureRenderer {
     private static final int SEP_V = 114;
     private static final int SEP_H = 2;
 
+    /**
+     * Receives one textured quad of the GUI texture, in GUI pixels and texture pixels.
+     */
+    private interface QuadSink {
+        void quad(int x, int y, int u, int v, int width, int height);
+    }
+
     private TextureRenderer() {}
 
     private static void bindTexture() {
-        ResourceLocation texture = ThemeManager.get().isDark() ? DARK_TEXTURE : LIGHT_TEXTURE;
-        RenderSystem.setShaderTexture(0, texture);
+        RenderSystem.setShaderTexture(0, currentTexture());
         RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
     }
 
-    public static void drawTilingBackground(PoseStack poseStack, int x, int y, int width, int height) {
-        bindTexture();
-        RenderSystem.enableBlend();
+    private static ResourceLocation currentTexture() {
+        return ThemeManager.get().isDark() ? DARK_TEXTURE : LIGHT_TEXTURE;
+    }
+
+    private static void tileBackground(QuadSink sink, int x, int y, int width, int height) {
         for (int ty = 0; ty < height; ty += BG_SIZE) {
             for (int tx = 0; tx < width; tx += BG_SIZE) {
                 int drawW = Math.min(BG_SIZE, width - tx);
                 int drawH = Math.min(BG_SIZE, height - ty);
-                GuiComponent.blit(poseStack, x + tx, y + ty, BG_U, BG_V, drawW, drawH, TEX_SIZE, TEX_SIZE);
+                sink.quad(x + tx, y + ty, BG_U, BG_V, drawW, drawH);
             }
         }
-        RenderSystem.disableBlend();
     }
 
-    public static void drawPanel(PoseStack poseStack, int x, int y, int width, int height) {
-        bindTexture();
-        RenderSystem.enableBlend();
-
+    private static void tilePanel(QuadSink sink, int x, int y, int width, int height) {
         int b = PANEL_BORDER;
         int innerW = width - b * 2;
         int innerH = height - b * 2;
 
         // Corners
-        GuiComponent.blit(poseStack, x, y, PANEL_U, PANEL_V, b, b, TEX_SIZE, TEX_SIZE);
-        GuiComponent.blit(poseStack, x + width - b, y, PANEL_U + PANEL_SIZE - b, PANEL_V, b, b, TEX_SIZE, TEX_SIZE);
-        GuiComponent.blit(poseStack, x, y + height - b, PANEL_U, PANEL_V + PANEL_SIZE - b, b, b, TEX_SIZE, TEX_SIZE);
-        GuiComponent.blit(poseStack, x + width - b, y + height - b, PANEL_U + PANEL_SIZE - b, PANEL_V + PANEL_SIZE - b, b, b, TEX_SIZE, TEX_SIZE);
+        sink.quad(x, y, PANEL_U, PANEL_V, b, b);
+        sink.quad(x + width - b, y, PANEL_U + PANEL_SIZE - b, PANEL_V, b, b);
+        sink.quad(x, y + height - b, PANEL_U, PANEL_V + PANEL_SIZE - b, b, b);
+        sink.quad(x + width - b, y + height - b, PANEL_U + PANEL_SIZE - b, PANEL_V + PANEL_SIZE - b, b, b);
 
         // Top and bottom edges (tiled)
         for (int tx = 0; tx < innerW; tx += PANEL_INNER) {
             int drawW = Math.min(PANEL_INNER, innerW - tx);
-            GuiComponent.blit(poseStack, x + b + tx, y, PANEL_U + b, PANEL_V, drawW, b, TEX_SIZE, TEX_SIZE);
-            GuiComponent.blit(poseStack, x + b + tx, y + height - b, PANEL_U + b, PANEL_V + PANEL_SIZE - b, drawW, b, TEX_SIZE, TEX_SIZE);
+            sink.quad(x + b + tx, y, PANEL_U + b, PANEL_V, drawW, b);
+            sink.quad(x + b + tx, y + height - b, PANEL_U + b, PANEL_V + PANEL_SIZE - b, drawW, b);
         }
 
         // Left and right edges (tiled)
         for (int ty = 0; ty < innerH; ty += PANEL_INNER) {
             int drawH = Math.min(PANEL_INNER, innerH - ty);
-            GuiComponent.blit(poseStack, x, y + b + ty, PANEL_U, PANEL_V + b, b, drawH, TEX_SIZE, TEX_SIZE);
-            GuiComponent.blit(poseStack, x + width - b, y + b + ty, PANEL_U + PANEL_SIZE - b, PANEL_V + b, b, drawH, TEX_SIZE, TEX_SIZE);
+            sink.quad(x, y + b + ty, PANEL_U, PANEL_V + b, b, drawH);
+            sink.quad(x + width - b, y + b + ty, PANEL_U + PANEL_SIZE - b, PANEL_V + b, b, drawH);
         }
 
         // Center (tiled)
@@ -80,18 +92,97 @@ public final class TextureRenderer {
             for (int tx = 0; tx < innerW; tx += PANEL_INNER) {
                 int drawW = Math.min(PANEL_INNER, innerW - tx);
                 int drawH = Math.min(PANEL_INNER, innerH - ty);
-                GuiComponent.blit(poseStack, x + b + tx, y + b + ty, PANEL_U + b, PANEL_V + b, drawW, drawH, TEX_SIZE, TEX_SIZE);
+                sink.quad(x + b + tx, y + b + ty, PANEL_U + b, PANEL_V + b, drawW, drawH);
             }
         }
-
-        RenderSystem.disableBlend();
     }
 
-    public static void drawSeparator(PoseStack poseStack, int x, int y, int width) {
-        bindTexture();
+    private static void tileSeparator(QuadSink sink, int x, int y, int width) {
         for (int tx = 0; tx < width; tx += TEX_SIZE) {
             int drawW = Math.min(TEX_SIZE, width - tx);
-            GuiComponent.blit(poseStack, x + tx, y, SEP_U, SEP_V, drawW, SEP_H, TEX_SIZE, TEX_SIZE);
+            sink.quad(x + tx, y, SEP_U, SEP_V, drawW, SEP_H);
+        }
+    }
+
+    /**
+     * A screen's background, panels and separators baked into one vertex buffer. The screen
+     * describes its chrome through a {@link Layout} along with a key for everything the layout
+     * depends on; the mesh is rebuilt only when that key or the theme changes, and otherwise drawn
+     * with one texture bind and one draw call. Call {@link #close()} when the screen is removed.
+     */
+    public static final class Chrome {
+        @Nullable
+        private VertexBuffer buffer;
+        private final Matrix4f modelView = new Matrix4f();
+        private long builtKey;
+        private boolean builtDark;
+
+        public interface Layout {
+            void build(Builder builder);
+        }
+
+        public static final class Builder {
+            private final QuadSink sink;
+
+            private Builder(QuadSink sink) {
+                this.sink = sink;
+            }
+
+            public Builder background(int x, int y, int width, int height) {
+                tileBackground(sink, x, y, width, height);
+                return this;
+            }
+
+            public Builder panel(int x, int y, int width, int height) {
+                tilePanel(sink, x, y, width, height);
+                return this;
+            }
+
+            public Builder separator(int x, int y, int width) {
+                tileSeparator(sink, x, y, width);
+                return this;
+            }
+        }
+
+        public void draw(PoseStack poseStack, long layoutKey, Layout layout) {
+            boolean dark = ThemeManager.get().isDark();
+            if (buffer == null || layoutKey != builtKey || dark != builtDark) {
+                rebuild(layout);
+                builtKey = layoutKey;
+                builtDark = dark;
+            }
+
+            modelView.load(RenderSystem.getModelViewMatrix());
+            modelView.multiply(poseStack.last().pose());
+            bindTexture();
+            RenderSystem.enableBlend();
+            buffer.drawWithShader(modelView, RenderSystem.getProjectionMatrix(), GameRenderer.getPositionTexShader());
+            RenderSystem.disableBlend();
+        }
+
+        private void rebuild(Layout layout) {
+            BufferBuilder builder = Tesselator.getInstance().getBuilder();
+            builder.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_TEX);
+            float texel = 1.0F / TEX_SIZE;
+            layout.build(new Builder((x, y, u, v, width, height) -> {
+                builder.vertex(x, y + height, 0.0D).uv(u * texel, (v + height) * texel).endVertex();
+                builder.vertex(x + width, y + height, 0.0D).uv((u + width) * texel, (v + height) * texel).endVertex();
+                builder.vertex(x + width, y, 0.0D).uv((u + width) * texel, v * texel).endVertex();
+                builder.vertex(x, y, 0.0D).uv(u * texel, v * texel).endVertex();
+            }));
+            builder.end();
+
+            if (buffer == null) {
+                buffer = new VertexBuffer();
+            }
+            buffer.upload(builder);
+        }
+
+        public void close() {
+            if (buffer != null) {
+                buffer.close();
+                buffer = null;
+            }
         }
     }
 }
@@ -0,0 +1,310 @@
+package com.masuary.entitylibrary.client.screen;
+
+import com.masuary.entitylibrary.EntityLibraryMod;
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.data.EntityConstructionWatchdog;
+import com.masuary.entitylibrary.client.data.EntityRenderWatchdog;
+import com.masuary.entitylibrary.client.data.PreviewEntityPool;
+import com.mojang.blaze3d.pipeline.RenderTarget;
+import com.mojang.blaze3d.pipeline.TextureTarget;
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.platform.NativeImage;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.math.Matrix4f;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.GuiComponent;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.system.MemoryUtil;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Small entity thumbnails for the list rows. Each thumbnail is rendered once into an offscreen
+ * framebuffer through {@link EntityPreviewRenderer} and copied on the GPU into a cell of a shared
+ * dynamic texture, so drawing a row is a single textured quad. Cells are reused least-recently-drawn first.
+ * Rows ask for their thumbnail while rendering; missing ones are queued and produced before the
+ * next frame's list pass under a time budget. The atlas is kept on disk by {@link ThumbnailCache}
+ * and restored before anything is rendered, so thumbnails survive restarts.
+ */
+public final class ThumbnailAtlas {
+    private static final ThumbnailAtlas INSTANCE = new ThumbnailAtlas();
+    private static final ResourceLocation TEXTURE = new ResourceLocation(EntityLibraryMod.MODID, "thumbnail_atlas");
+
+    static final int CELL = 32;
+    static final int ATLAS_SIZE = 512;
+    private static final int CELLS_PER_ROW = ATLAS_SIZE / CELL;
+    private static final int SLOTS = CELLS_PER_ROW * CELLS_PER_ROW;
+    private static final long FRAME_BUDGET_NANOS = 2_000_000L;
+    private static final int MAX_QUEUED = 64;
+
+    @Nullable
+    private DynamicTexture texture;
+    @Nullable
+    private RenderTarget target;
+    @Nullable
+    private EntityCatalog catalog;
+
+    private final Int2IntMap slotByIndex = new Int2IntOpenHashMap();
+    private final int[] slotOwner = new int[SLOTS];
+    private final long[] slotLastUsed = new long[SLOTS];
+    private final IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
+    private final IntSet queued = new IntOpenHashSet();
+    private final IntSet unavailable = new IntOpenHashSet();
+    private long frame;
+    private boolean restored;
+    private boolean dirty;
+
+    private ThumbnailAtlas() {
+        slotByIndex.defaultReturnValue(-1);
+        Arrays.fill(slotOwner, -1);
+    }
+
+    public static ThumbnailAtlas get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Draws the thumbnail for a catalog index if it is ready, otherwise queues it.
+     *
+     * @return true if a thumbnail was drawn
+     */
+    public boolean draw(PoseStack poseStack, EntityCatalog catalog, int index, int x, int y, int size) {
+        if (catalog != this.catalog) {
+            return false;
+        }
+        int slot = slotByIndex.get(index);
+        if (slot < 0) {
+            request(index);
+            return false;
+        }
+
+        slotLastUsed[slot] = frame;
+        RenderSystem.setShaderTexture(0, TEXTURE);
+        RenderSystem.setShaderColor(1.0F, 1.0F, 1.0F, 1.0F);
+        RenderSystem.enableBlend();
+        GuiComponent.blit(poseStack, x, y, size, size,
+                (float) (slot % CELLS_PER_ROW * CELL), (float) (slot / CELLS_PER_ROW * CELL),
+                CELL, CELL, ATLAS_SIZE, ATLAS_SIZE);
+        RenderSystem.disableBlend();
+        return true;
+    }
+
+    /**
+     * Queues a thumbnail without drawing it, for rows about to scroll into view.
+     */
+    public void request(int index) {
+        if (slotByIndex.containsKey(index) || unavailable.contains(index) || queued.size() >= MAX_QUEUED) {
+            return;
+        }
+        if (queued.add(index)) {
+            queue.enqueue(index);
+        }
+    }
+
+    /**
+     * Renders queued thumbnails until the frame budget is spent. Must be called outside any scissor
+     * or framebuffer the caller has set up, before the rows that will draw them.
+     */
+    public void renderPending(EntityCatalog catalog) {
+        frame++;
+        if (catalog != this.catalog) {
+            clear();
+            this.catalog = catalog;
+        }
+        ensureTexture();
+        if (!restored) {
+            restored = true;
+            restore(catalog);
+        }
+        Minecraft mc = Minecraft.getInstance();
+        if (queue.isEmpty() || mc.level == null) {
+            return;
+        }
+
+        ensureTarget();
+        long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            int index = queue.dequeueInt();
+            queued.remove(index);
+            if (slotByIndex.containsKey(index)) {
+                continue;
+            }
+            if (!renderThumbnail(mc, catalog, index)) {
+                unavailable.add(index);
+            }
+        }
+        mc.getMainRenderTarget().bindWrite(true);
+    }
+
+    private void ensureTexture() {
+        if (texture == null) {
+            texture = new DynamicTexture(ATLAS_SIZE, ATLAS_SIZE, true);
+            Minecraft.getInstance().getTextureManager().register(TEXTURE, texture);
+        }
+    }
+
+    private void ensureTarget() {
+        if (target == null) {
+            target = new TextureTarget(CELL, CELL, true, Minecraft.ON_OSX);
+            target.setClearColor(0.0F, 0.0F, 0.0F, 0.0F);
+        }
+    }
+
+    private boolean renderThumbnail(Minecraft mc, EntityCatalog catalog, int index) {
+        ResourceLocation id = catalog.id(index);
+        if (EntityConstructionWatchdog.get().isQuarantined(id) || EntityRenderWatchdog.get().isQuarantined(id)) {
+            return false;
+        }
+
+        // Reuse an entity the library already holds, but build any other one outside the pool:
+        // scrolling through thumbnails would otherwise evict the selection and its prefetched
+        // neighbours.
+        PreviewEntityPool pool = PreviewEntityPool.get();
+        Entity pooled = pool.contains(id) ? pool.get(id, mc.level) : null;
+        Entity entity = pooled;
+        try {
+            if (entity == null) {
+                entity = pool.create(id, mc.level);
+            }
+            return entity instanceof LivingEntity living && renderInto(index, living);
+        } catch (Throwable t) {
+            return false;
+        } finally {
+            if (entity != null && entity != pooled) {
+                entity.discard();
+            }
+        }
+    }
+
+    private boolean renderInto(int index, LivingEntity living) {
+        target.clear(Minecraft.ON_OSX);
+        target.bindWrite(true);
+        Matrix4f previousProjection = RenderSystem.getProjectionMatrix().copy();
+        RenderSystem.setProjectionMatrix(Matrix4f.orthographic(0.0F, CELL, 0.0F, CELL, 1000.0F, 3000.0F));
+        try {
+            float extent = Math.max(0.5F, Math.max(living.getBbHeight(), living.getBbWidth()));
+            int scale = Math.max(1, (int) (CELL * 0.8F / extent));
+            if (!EntityPreviewRenderer.render(CELL / 2, (int) (CELL * 0.9F), scale, -0.6F, 0.0F, living)) {
+                return false;
+            }
+        } finally {
+            RenderSystem.setProjectionMatrix(previousProjection);
+        }
+
+        copyIntoAtlas(allocateSlot(index));
+        return true;
+    }
+
+    /**
+     * Copies the framebuffer, still bound for reading, into the slot's cell without a round trip
+     * through client memory. Framebuffer rows run bottom-up and texture rows top-down, so the copy
+     * goes one row at a time to flip the cell. The atlas image in memory is left stale; {@link #save}
+     * reads the texture back anyway.
+     */
+    private void copyIntoAtlas(int slot) {
+        int cellX = slot % CELLS_PER_ROW * CELL;
+        int cellY = slot / CELLS_PER_ROW * CELL;
+        texture.bind();
+        for (int row = 0; row < CELL; row++) {
+            GL11.glCopyTexSubImage2D(GL11.GL_TEXTURE_2D, 0, cellX, cellY + row, 0, CELL - 1 - row, CELL, 1);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Uploads the atlas saved for the current mods and resource packs, if any, straight from the
+     * file mapping, and re-links its cells to catalog indices.
+     */
+    private void restore(EntityCatalog catalog) {
+        ThumbnailCache.Snapshot snapshot = ThumbnailCache.load(ThumbnailCache.key(CELL, ATLAS_SIZE), CELL, ATLAS_SIZE);
+        if (snapshot == null) {
+            return;
+        }
+
+        texture.bind();
+        GlStateManager._pixelStore(GL11.GL_UNPACK_ROW_LENGTH, 0);
+        GlStateManager._pixelStore(GL11.GL_UNPACK_SKIP_PIXELS, 0);
+        GlStateManager._pixelStore(GL11.GL_UNPACK_SKIP_ROWS, 0);
+        GlStateManager._pixelStore(GL11.GL_UNPACK_ALIGNMENT, 4);
+        GlStateManager._texSubImage2D(GL11.GL_TEXTURE_2D, 0, 0, 0, ATLAS_SIZE, ATLAS_SIZE,
+                GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, MemoryUtil.memAddress(snapshot.pixels()));
+
+        ResourceLocation[] owners = snapshot.owners();
+        for (int slot = 0; slot < Math.min(owners.length, SLOTS); slot++) {
+            int index = owners[slot] == null ? -1 : catalog.indexOf(owners[slot]);
+            if (index >= 0 && !slotByIndex.containsKey(index)) {
+                slotOwner[slot] = index;
+                slotByIndex.put(index, slot);
+            }
+        }
+    }
+
+    /**
+     * Writes the atlas to disk if thumbnails were rendered since it was last saved or restored.
+     */
+    public void save() {
+        if (!dirty || texture == null || catalog == null) {
+            return;
+        }
+        dirty = false;
+
+        // Cells are only ever written on the GPU, so read the whole texture back first.
+        NativeImage pixels = texture.getPixels();
+        texture.bind();
+        pixels.downloadTexture(0, false);
+        ResourceLocation[] owners = new ResourceLocation[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            owners[slot] = slotOwner[slot] < 0 ? null : catalog.id(slotOwner[slot]);
+        }
+        ThumbnailCache.save(ThumbnailCache.key(CELL, ATLAS_SIZE), CELL, owners, pixels);
+    }
+
+    /**
+     * Takes a free cell, or the one drawn least recently.
+     */
+    private int allocateSlot(int index) {
+        int chosen = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (slotOwner[slot] < 0) {
+                chosen = slot;
+                break;
+            }
+            if (slotLastUsed[slot] < slotLastUsed[chosen]) {
+                chosen = slot;
+            }
+        }
+        if (slotOwner[chosen] >= 0) {
+            slotByIndex.remove(slotOwner[chosen]);
+        }
+        slotOwner[chosen] = index;
+        slotLastUsed[chosen] = frame;
+        slotByIndex.put(index, chosen);
+        return chosen;
+    }
+
+    /**
+     * Forgets every thumbnail, e.g. after resource packs change how entities look. The atlas saved
+     * for the new resource packs, if any, is restored on the next frame.
+     */
+    public void clear() {
+        restored = false;
+        dirty = false;
+        slotByIndex.clear();
+        Arrays.fill(slotOwner, -1);
+        Arrays.fill(slotLastUsed, 0L);
+        queue.clear();
+        queued.clear();
+        unavailable.clear();
+    }
+}
@@ -0,0 +1,228 @@
+package com.masuary.entitylibrary.client.screen;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.masuary.entitylibrary.client.data.ClassificationCache;
+import com.mojang.blaze3d.platform.NativeImage;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * The {@link ThumbnailAtlas} persisted under {@code config/entitylibrary/cache/}, one file per
+ * mod list and resource pack stack. The file is a header page listing which entity owns each
+ * cell, followed at a page-aligned offset by the raw RGBA pixels of the whole atlas, so loading
+ * maps the file and hands the mapping straight to the texture upload without decoding anything.
+ */
+final class ThumbnailCache {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int MAGIC = 0x454C5443;
+    private static final int FORMAT_VERSION = 1;
+    private static final int PAGE_SIZE = 4096;
+    private static final int MAX_FILES = 4;
+    private static final String FILE_PREFIX = "thumbnails-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    /**
+     * A loaded atlas. {@code pixels} holds {@code atlasSize * atlasSize} RGBA pixels, usually as a
+     * read-only mapping of the file; {@code owners} has one entry per cell, null for empty cells.
+     */
+    record Snapshot(ResourceLocation[] owners, ByteBuffer pixels) {}
+
+    private ThumbnailCache() {}
+
+    /**
+     * Hash of the loaded mods, the selected resource packs in priority order and the atlas layout.
+     */
+    static long key(int cellSize, int atlasSize) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        ClassificationCache.putModList(hasher);
+        for (String pack : Minecraft.getInstance().getResourcePackRepository().getSelectedIds()) {
+            hasher.putString(pack, StandardCharsets.UTF_8);
+            hasher.putChar(';');
+        }
+        hasher.putInt(cellSize);
+        hasher.putInt(atlasSize);
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * @return the atlas stored for the key, or null if there is none or it does not match the layout
+     */
+    @Nullable
+    static Snapshot load(long key, int cellSize, int atlasSize) {
+        Path file = getCachePath(key);
+        promotePendingWrite(file);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+            readFully(channel, header, 0L);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION || header.getLong() != key
+                    || header.getInt() != cellSize || header.getInt() != atlasSize) {
+                return null;
+            }
+            int pixelOffset = header.getInt();
+            int slots = header.getInt();
+            long pixelBytes = (long) atlasSize * atlasSize * 4L;
+            if (pixelOffset % PAGE_SIZE != 0 || channel.size() < pixelOffset + pixelBytes) {
+                return null;
+            }
+
+            if (pixelOffset > PAGE_SIZE) {
+                header = ByteBuffer.allocate(pixelOffset);
+                readFully(channel, header, 0L);
+                header.flip();
+                header.position(32);
+            }
+            ResourceLocation[] owners = new ResourceLocation[slots];
+            for (int slot = 0; slot < slots; slot++) {
+                byte[] id = new byte[header.getShort() & 0xFFFF];
+                header.get(id);
+                owners[slot] = id.length == 0 ? null : ResourceLocation.tryParse(new String(id, StandardCharsets.UTF_8));
+            }
+
+            return new Snapshot(owners, mapPixels(channel, pixelOffset, pixelBytes));
+        } catch (Exception e) {
+            LOGGER.warn("Failed to load thumbnail cache {}", file.getFileName(), e);
+            return null;
+        }
+    }
+
+    private static ByteBuffer mapPixels(FileChannel channel, int offset, long length) throws IOException {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Some filesystems cannot be mapped; a plain read into native memory works everywhere.
+            ByteBuffer pixels = ByteBuffer.allocateDirect((int) length);
+            readFully(channel, pixels, offset);
+            pixels.flip();
+            return pixels;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of thumbnail cache");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Writes the atlas pixels, which must already hold the texture's current contents.
+     */
+    static void save(long key, int cellSize, ResourceLocation[] owners, NativeImage pixels) {
+        Path file = getCachePath(key);
+        int atlasSize = pixels.getWidth();
+        try {
+            Files.createDirectories(file.getParent());
+
+            byte[][] ids = new byte[owners.length][];
+            int headerBytes = 32;
+            for (int slot = 0; slot < owners.length; slot++) {
+                ids[slot] = owners[slot] == null ? new byte[0] : owners[slot].toString().getBytes(StandardCharsets.UTF_8);
+                headerBytes += 2 + ids[slot].length;
+            }
+            int pixelOffset = (headerBytes + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+
+            ByteBuffer header = ByteBuffer.allocate(pixelOffset);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(key).putInt(cellSize).putInt(atlasSize);
+            header.putInt(pixelOffset).putInt(owners.length);
+            for (byte[] id : ids) {
+                header.putShort((short) id.length).put(id);
+            }
+            header.rewind();
+
+            // NativeImage stores RGBA bytes, which read back as little-endian ints.
+            ByteBuffer body = ByteBuffer.allocateDirect(atlasSize * atlasSize * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = 0; y < atlasSize; y++) {
+                for (int x = 0; x < atlasSize; x++) {
+                    body.putInt(pixels.getPixelRGBA(x, y));
+                }
+            }
+            body.flip();
+
+            Path temp = pendingPath(file);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // Windows refuses to replace a file that is still mapped from this session's load;
+                // the new contents stay in the pending file and are promoted on the next launch.
+                LOGGER.debug("Deferred thumbnail cache replacement", e);
+            }
+            pruneOldFiles(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save thumbnail cache", e);
+        }
+    }
+
+    private static void promotePendingWrite(Path file) {
+        Path pending = pendingPath(file);
+        if (Files.exists(pending)) {
+            try {
+                Files.move(pending, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                LOGGER.debug("Could not promote pending thumbnail cache", e);
+            }
+        }
+    }
+
+    private static Path pendingPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * Keeps the few most recently written atlases so switching back to a previous pack stack is
+     * still cached, and deletes the rest.
+     */
+    private static void pruneOldFiles(Path current) throws IOException {
+        try (Stream<Path> files = Files.list(current.getParent())) {
+            List<Path> stale = files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX) && !path.equals(current);
+                    })
+                    .sorted((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()))
+                    .toList();
+            for (int i = 0; i < stale.size() - (MAX_FILES - 1); i++) {
+                Files.deleteIfExists(stale.get(i));
+            }
+        }
+    }
+
+    private static Path getCachePath(long key) {
+        return FMLPaths.CONFIGDIR.get().resolve("entitylibrary").resolve("cache")
+                .resolve(FILE_PREFIX + String.format(Locale.ROOT, "%016x", key) + FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,349 @@
+package com.masuary.entitylibrary.client.search;
+
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.data.LootIndex;
+import com.masuary.entitylibrary.client.data.LootTableParser;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.MobCategory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+
+/**
+ * A parsed search box query. Besides free text it understands:
+ * <ul>
+ *     <li>{@code ns:alexsmobs} / {@code mod:} - namespace prefix, comma separated for several mods</li>
+ *     <li>{@code category:monster} / {@code cat:} - mob category, comma separated</li>
+ *     <li>{@code health>=40}, {@code width<1}, {@code height=2} - comparisons with {@code < <= = != >= >}</li>
+ *     <li>{@code drops:bone} - drop display name substring, or an exact item ID such as {@code drops:minecraft:bone}</li>
+ * </ul>
+ * Tokens that do not parse as a clause are treated as free text.
+ */
+public final class EntityQuery {
+    public static final EntityQuery EMPTY = new EntityQuery("", List.of(), List.of(), List.of());
+
+    private static final String[] OPERATORS = {">=", "<=", "!=", ">", "<", "="};
+    private static final float EPSILON = 1.0E-3F;
+    private static final int SELECTIVITY_SAMPLES = 256;
+
+    private final String text;
+    private final List<String> namespacePrefixes;
+    private final List<String> categoryNames;
+    private final List<Clause> clauses;
+
+    private EntityQuery(String text, List<String> namespacePrefixes, List<String> categoryNames, List<Clause> clauses) {
+        this.text = text;
+        this.namespacePrefixes = namespacePrefixes;
+        this.categoryNames = categoryNames;
+        this.clauses = clauses;
+    }
+
+    private enum Field {
+        HEALTH, WIDTH, HEIGHT;
+
+        float read(EntityCatalog catalog, int index) {
+            return switch (this) {
+                case HEALTH -> catalog.health(index);
+                case WIDTH -> catalog.width(index);
+                case HEIGHT -> catalog.height(index);
+            };
+        }
+    }
+
+    private interface Clause {
+        boolean test(EntityCatalog catalog, int index);
+
+        /**
+         * Relative evaluation cost, weighed against selectivity when ordering the chain.
+         */
+        int cost();
+
+        /**
+         * Swaps in a faster form of the clause for this catalog, if there is one.
+         */
+        default Clause bind(EntityCatalog catalog) {
+            return this;
+        }
+    }
+
+    private record Comparison(Field field, String operator, float value) implements Clause {
+        @Override
+        public boolean test(EntityCatalog catalog, int index) {
+            float actual = field.read(catalog, index);
+            if (Float.isNaN(actual)) {
+                return false;
+            }
+            return switch (operator) {
+                case ">=" -> actual >= value - EPSILON;
+                case "<=" -> actual <= value + EPSILON;
+                case ">" -> actual > value + EPSILON;
+                case "<" -> actual < value - EPSILON;
+                case "!=" -> Math.abs(actual - value) > EPSILON;
+                default -> Math.abs(actual - value) <= EPSILON;
+            };
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+    }
+
+    /**
+     * Until the loot index is built this only sees drops already read for the detail panel, which
+     * hold display names; an exact clause matches one whole name.
+     */
+    private record DropsClause(String needle, boolean exact) implements Clause {
+        @Override
+        public boolean test(EntityCatalog catalog, int index) {
+            String[] drops = catalog.cachedDrops(index);
+            if (drops == null) {
+                return false;
+            }
+            for (String drop : drops) {
+                if (exact ? drop.equals(needle) : drop.contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int cost() {
+            return 8;
+        }
+
+        /**
+         * With the loot index built, the matching entities are looked up once through its reverse
+         * index instead of scanning every entity's drop names.
+         */
+        @Override
+        public Clause bind(EntityCatalog catalog) {
+            LootIndex.Snapshot loot = LootIndex.get().snapshot(catalog);
+            if (loot != null) {
+                return new IndexedDropsClause(loot.entitiesDropping(needle));
+            }
+            // Cached drops are display names, so an item ID is matched by the name it displays as.
+            ResourceLocation itemId = needle.indexOf(':') >= 0 ? ResourceLocation.tryParse(needle) : null;
+            return itemId == null ? this
+                    : new DropsClause(LootTableParser.itemDisplayName(itemId).toLowerCase(Locale.ROOT), true);
+        }
+    }
+
+    private record IndexedDropsClause(BitSet entities) implements Clause {
+        @Override
+        public boolean test(EntityCatalog catalog, int index) {
+            return entities.get(index);
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+    }
+
+    public static EntityQuery parse(String raw) {
+        String trimmed = raw.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.isEmpty()) {
+            return EMPTY;
+        }
+
+        StringBuilder text = new StringBuilder();
+        List<String> namespaces = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        List<Clause> clauses = new ArrayList<>();
+
+        for (String token : trimmed.split("\\s+")) {
+            if (!parseClause(token, namespaces, categories, clauses)) {
+                if (text.length() > 0) {
+                    text.append(' ');
+                }
+                text.append(token);
+            }
+        }
+        return new EntityQuery(text.toString(), List.copyOf(namespaces), List.copyOf(categories), List.copyOf(clauses));
+    }
+
+    private static boolean parseClause(String token, List<String> namespaces, List<String> categories, List<Clause> clauses) {
+        int colon = token.indexOf(':');
+        if (colon > 0 && colon < token.length() - 1) {
+            String key = token.substring(0, colon);
+            String value = token.substring(colon + 1);
+            switch (key) {
+                case "ns", "mod", "namespace" -> {
+                    addAll(namespaces, value);
+                    return true;
+                }
+                case "category", "cat" -> {
+                    addAll(categories, value);
+                    return true;
+                }
+                case "drops", "drop" -> {
+                    clauses.add(new DropsClause(value, false));
+                    return true;
+                }
+                default -> {
+                    Field field = parseField(key);
+                    Float number = parseNumber(value);
+                    if (field != null && number != null) {
+                        clauses.add(new Comparison(field, "=", number));
+                        return true;
+                    }
+                    return false;
+                }
+            }
+        }
+
+        for (String operator : OPERATORS) {
+            int at = token.indexOf(operator);
+            if (at <= 0) {
+                continue;
+            }
+            Field field = parseField(token.substring(0, at));
+            Float number = parseNumber(token.substring(at + operator.length()));
+            if (field == null || number == null) {
+                return false;
+            }
+            clauses.add(new Comparison(field, operator, number));
+            return true;
+        }
+        return false;
+    }
+
+    private static void addAll(List<String> target, String commaSeparated) {
+        for (String part : commaSeparated.split(",")) {
+            if (!part.isEmpty()) {
+                target.add(part);
+            }
+        }
+    }
+
+    @Nullable
+    private static Field parseField(String key) {
+        return switch (key) {
+            case "health", "hp" -> Field.HEALTH;
+            case "width" -> Field.WIDTH;
+            case "height" -> Field.HEIGHT;
+            default -> null;
+        };
+    }
+
+    @Nullable
+    private static Float parseNumber(String value) {
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Free text left after removing clauses, for the text search.
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Whether the query has a {@code drops:} clause, whose compiled form depends on the loot index.
+     */
+    public boolean filtersDrops() {
+        for (Clause clause : clauses) {
+            if (clause instanceof DropsClause) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Narrows {@code mask} to the namespaces and categories named by the query.
+     * Unknown names match nothing.
+     */
+    public void restrictFacets(BitSet mask, FacetIndex facets) {
+        if (!namespacePrefixes.isEmpty()) {
+            List<String> names = facets.namespaceNames();
+            BitSet selected = new BitSet(names.size());
+            for (int n = 0; n < names.size(); n++) {
+                for (String prefix : namespacePrefixes) {
+                    if (names.get(n).startsWith(prefix)) {
+                        selected.set(n);
+                        break;
+                    }
+                }
+            }
+            mask.and(facets.namespaces(selected));
+        }
+
+        if (!categoryNames.isEmpty()) {
+            List<MobCategory> selected = new ArrayList<>();
+            for (MobCategory category : MobCategory.values()) {
+                String name = category.getName();
+                for (String wanted : categoryNames) {
+                    if (name.equals(wanted) || name.replace("_", "").equals(wanted)) {
+                        selected.add(category);
+                        break;
+                    }
+                }
+            }
+            mask.and(facets.categories(selected.toArray(new MobCategory[0])));
+        }
+    }
+
+    /**
+     * Compiles the metadata clauses into one predicate over entry indices. Clauses are
+     * ordered by sampled selectivity times cost, so the chain rejects most entries early.
+     */
+    public IntPredicate compile(EntityCatalog catalog) {
+        if (clauses.isEmpty()) {
+            return index -> true;
+        }
+
+        List<Clause> clauses = new ArrayList<>(this.clauses.size());
+        for (Clause clause : this.clauses) {
+            clauses.add(clause.bind(catalog));
+        }
+
+        int size = catalog.size();
+        int stride = Math.max(1, size / SELECTIVITY_SAMPLES);
+        double[] weights = new double[clauses.size()];
+        for (int c = 0; c < clauses.size(); c++) {
+            Clause clause = clauses.get(c);
+            int passed = 0;
+            int sampled = 0;
+            for (int i = 0; i < size; i += stride) {
+                sampled++;
+                if (clause.test(catalog, i)) {
+                    passed++;
+                }
+            }
+            double selectivity = (passed + 1.0D) / (sampled + 1.0D);
+            weights[c] = selectivity * clause.cost();
+        }
+
+        Integer[] order = new Integer[clauses.size()];
+        for (int c = 0; c < order.length; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(c -> weights[c]));
+        Clause[] chain = new Clause[order.length];
+        for (int c = 0; c < order.length; c++) {
+            chain[c] = clauses.get(order[c]);
+        }
+
+        return index -> {
+            for (Clause clause : chain) {
+                if (!clause.test(catalog, index)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package com.masuary.entitylibrary.client.search;
+
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import com.masuary.entitylibrary.client.data.FavoritesManager;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.MobCategory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Precomputed filter facets as bit sets over {@link EntityCatalog} indices.
+ * Combining filters is a word-wise AND/OR instead of a per-entity lookup.
+ */
+public final class FacetIndex {
+    private final EntityCatalog catalog;
+    private final int size;
+    private final BitSet[] categories;
+    private final List<String> namespaces;
+    private final BitSet[] namespaceBits;
+    private final BitSet living = new BitSet();
+    private final BitSet favorites = new BitSet();
+    // FavoritesManager generation the favorites facet was last read at.
+    private int favoritesGeneration = -1;
+
+    private FacetIndex(EntityCatalog catalog, BitSet[] categories, List<String> namespaces, BitSet[] namespaceBits) {
+        this.catalog = catalog;
+        this.size = catalog.size();
+        this.categories = categories;
+        this.namespaces = namespaces;
+        this.namespaceBits = namespaceBits;
+    }
+
+    public static FacetIndex build(EntityCatalog catalog) {
+        int size = catalog.size();
+
+        MobCategory[] values = MobCategory.values();
+        BitSet[] categories = new BitSet[values.length];
+        for (int c = 0; c < values.length; c++) {
+            categories[c] = new BitSet(size);
+        }
+
+        TreeMap<String, BitSet> byNamespace = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            ResourceLocation id = catalog.id(i);
+            categories[catalog.category(i).ordinal()].set(i);
+            byNamespace.computeIfAbsent(id.getNamespace(), ns -> new BitSet(size)).set(i);
+        }
+
+        FacetIndex facets = new FacetIndex(catalog, categories,
+                new ArrayList<>(byNamespace.keySet()), byNamespace.values().toArray(new BitSet[0]));
+        for (int i = 0; i < size; i++) {
+            facets.living.set(i, catalog.isLiving(i));
+        }
+        facets.syncFavorites();
+        return facets;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sorted namespaces; a namespace's position is its index for {@link #namespaces(BitSet)}.
+     */
+    public List<String> namespaceNames() {
+        return namespaces;
+    }
+
+    public BitSet all() {
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        return all;
+    }
+
+    /**
+     * Union of the entries in every selected namespace.
+     *
+     * @param selected bits indexed like {@link #namespaceNames()}
+     */
+    public BitSet namespaces(BitSet selected) {
+        BitSet union = new BitSet(size);
+        for (int n = selected.nextSetBit(0); n >= 0; n = selected.nextSetBit(n + 1)) {
+            union.or(namespaceBits[n]);
+        }
+        return union;
+    }
+
+    public BitSet categories(MobCategory... selected) {
+        BitSet union = new BitSet(size);
+        for (MobCategory category : selected) {
+            union.or(categories[category.ordinal()]);
+        }
+        return union;
+    }
+
+    /**
+     * Entries known to be living. Call {@link #syncLiving} as the catalog learns more.
+     */
+    public BitSet living() {
+        return living;
+    }
+
+    public void syncLiving(int index) {
+        living.set(index, catalog.isLiving(index));
+    }
+
+    public BitSet favorites() {
+        return favorites;
+    }
+
+    /**
+     * Re-reads the favorites facet if the favorites have changed since it was last read, covering
+     * changes that did not reach {@link #setFavorite}, such as a reloaded favorites file.
+     */
+    public void syncFavorites() {
+        FavoritesManager manager = FavoritesManager.get();
+        if (manager.generation() == favoritesGeneration) {
+            return;
+        }
+        favoritesGeneration = manager.generation();
+        favorites.clear();
+        for (ResourceLocation id : manager.favorites()) {
+            setFavorite(id, true);
+        }
+    }
+
+    public void setFavorite(ResourceLocation id, boolean favorite) {
+        int index = catalog.indexOf(id);
+        if (index >= 0) {
+            favorites.set(index, favorite);
+        }
+    }
+}
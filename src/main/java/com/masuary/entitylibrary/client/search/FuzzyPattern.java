@@ -0,0 +1,142 @@
+package com.masuary.entitylibrary.client.search;
+
+import java.util.Arrays;
+
+/**
+ * A compiled search needle that supports approximate substring matching with
+ * Myers' bit-parallel edit distance algorithm. Patterns of up to 64 characters
+ * fit in a single machine word, so matching costs a handful of bit operations
+ * per text character.
+ */
+public final class FuzzyPattern {
+    private static final int MAX_FUZZY_LENGTH = Long.SIZE;
+    private static final int ASCII = 128;
+
+    private final String needle;
+    private final int maxErrors;
+    private final long[] asciiMasks = new long[ASCII];
+    private final char[] otherChars;
+    private final long[] otherMasks;
+    private final long highBit;
+
+    private FuzzyPattern(String needle) {
+        this.needle = needle;
+        int length = needle.length();
+        this.maxErrors = length > MAX_FUZZY_LENGTH ? 0 : errorsFor(length);
+
+        char[] others = new char[0];
+        long[] otherMaskValues = new long[0];
+        if (this.maxErrors > 0) {
+            for (int i = 0; i < length; i++) {
+                char c = needle.charAt(i);
+                if (c < ASCII) {
+                    asciiMasks[c] |= 1L << i;
+                    continue;
+                }
+                int slot = indexOf(others, c);
+                if (slot < 0) {
+                    others = Arrays.copyOf(others, others.length + 1);
+                    otherMaskValues = Arrays.copyOf(otherMaskValues, otherMaskValues.length + 1);
+                    slot = others.length - 1;
+                    others[slot] = c;
+                }
+                otherMaskValues[slot] |= 1L << i;
+            }
+        }
+        this.otherChars = others;
+        this.otherMasks = otherMaskValues;
+        this.highBit = length == 0 ? 0L : 1L << (Math.min(length, MAX_FUZZY_LENGTH) - 1);
+    }
+
+    /**
+     * @param needle lowercased query
+     */
+    public static FuzzyPattern compile(String needle) {
+        return new FuzzyPattern(needle);
+    }
+
+    private static int errorsFor(int length) {
+        if (length < 4) {
+            return 0;
+        }
+        return length < 8 ? 1 : 2;
+    }
+
+    private static int indexOf(char[] chars, char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String needle() {
+        return needle;
+    }
+
+    /**
+     * Number of edits a fuzzy hit may contain. Short needles only match exactly.
+     */
+    public int maxErrors() {
+        return maxErrors;
+    }
+
+    public boolean isEmpty() {
+        return needle.isEmpty();
+    }
+
+    /**
+     * Returns the smallest edit distance between the needle and any substring of
+     * {@code text}, or {@code maxErrors() + 1} if it exceeds the error budget.
+     *
+     * @param text lowercased haystack
+     */
+    public int distance(String text) {
+        int length = needle.length();
+        if (maxErrors == 0) {
+            return text.contains(needle) ? 0 : 1;
+        }
+
+        long pv = -1L;
+        long mv = 0L;
+        int score = length;
+        int best = length;
+
+        for (int i = 0; i < text.length(); i++) {
+            long eq = mask(text.charAt(i));
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+
+            if ((ph & highBit) != 0) {
+                score++;
+            } else if ((mh & highBit) != 0) {
+                score--;
+            }
+
+            // No carry-in on the horizontal delta: a match may start anywhere in the text.
+            ph <<= 1;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+
+            if (score < best) {
+                best = score;
+                if (best == 0) {
+                    return 0;
+                }
+            }
+        }
+        return Math.min(best, maxErrors + 1);
+    }
+
+    private long mask(char c) {
+        if (c < ASCII) {
+            return asciiMasks[c];
+        }
+        int slot = indexOf(otherChars, c);
+        return slot < 0 ? 0L : otherMasks[slot];
+    }
+}
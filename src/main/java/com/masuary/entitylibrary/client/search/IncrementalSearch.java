@@ -0,0 +1,75 @@
+package com.masuary.entitylibrary.client.search;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Text search over a {@link SearchIndex} that remembers recent result sets.
+ * A needle containing a remembered needle, with no larger error budget, can
+ * only match a subset of that needle's hits, so typing and backspacing filter
+ * the previous result instead of the whole registry.
+ */
+public final class IncrementalSearch {
+    private static final int MAX_DEPTH = 16;
+
+    private final SearchIndex index;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+
+    private record Frame(String needle, int maxErrors, int[] hits) {}
+
+    public IncrementalSearch(SearchIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Returns the ascending indices of all entries matching {@code pattern}.
+     * The returned array is shared with the stack and must not be modified.
+     *
+     * @param cancelled polled while scanning
+     * @return the hits, or null if the search was cancelled
+     */
+    @Nullable
+    public int[] search(FuzzyPattern pattern, BooleanSupplier cancelled) {
+        String needle = pattern.needle();
+        while (!frames.isEmpty()) {
+            Frame top = frames.peek();
+            if (top.needle.equals(needle)) {
+                return top.hits;
+            }
+            if (needle.contains(top.needle)) {
+                break;
+            }
+            frames.pop();
+        }
+
+        IntArrayList out = new IntArrayList();
+        Frame base = frames.peek();
+        // Narrowing from the unfiltered set is a full scan; the trigram index does better.
+        // A larger error budget can admit hits the base frame rejected.
+        if (base == null || base.needle.isEmpty() || pattern.maxErrors() > base.maxErrors) {
+            if (!index.search(pattern, out, cancelled)) {
+                return null;
+            }
+        } else {
+            int[] previous = base.hits;
+            for (int i = 0; i < previous.length; i++) {
+                if ((i & SearchIndex.CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                    return null;
+                }
+                if (index.matches(previous[i], pattern)) {
+                    out.add(previous[i]);
+                }
+            }
+        }
+
+        int[] hits = out.toIntArray();
+        frames.push(new Frame(needle, pattern.maxErrors(), hits));
+        if (frames.size() > MAX_DEPTH) {
+            frames.removeLast();
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,223 @@
+package com.masuary.entitylibrary.client.search;
+
+import com.masuary.entitylibrary.client.data.EntityCatalog;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Immutable trigram index over lowercased registry IDs and display names.
+ * Entries are addressed by their {@link EntityCatalog} index.
+ */
+public final class SearchIndex {
+    private static final int GRAM = 3;
+    static final int CANCEL_CHECK_MASK = 1023;
+
+    private static final int SCORE_EXACT = 1000;
+    private static final int SCORE_PREFIX = 800;
+    private static final int SCORE_WORD = 600;
+    private static final int SCORE_SUBSTRING = 400;
+    private static final int SCORE_NAMESPACE = 300;
+    private static final int SCORE_FUZZY = 200;
+    private static final int FUZZY_PENALTY = 50;
+
+    private final String[] ids;
+    private final String[] namespaces;
+    private final String[] paths;
+    private final String[] names;
+    private final Long2ObjectMap<int[]> postings;
+
+    private SearchIndex(String[] ids, String[] namespaces, String[] paths, String[] names, Long2ObjectMap<int[]> postings) {
+        this.ids = ids;
+        this.namespaces = namespaces;
+        this.paths = paths;
+        this.names = names;
+        this.postings = postings;
+    }
+
+    public static SearchIndex build(EntityCatalog catalog) {
+        int size = catalog.size();
+        String[] ids = new String[size];
+        String[] namespaces = new String[size];
+        String[] paths = new String[size];
+        String[] names = new String[size];
+        Long2ObjectOpenHashMap<IntArrayList> lists = new Long2ObjectOpenHashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            ResourceLocation id = catalog.id(i);
+            ids[i] = id.toString().toLowerCase(Locale.ROOT);
+            namespaces[i] = id.getNamespace().toLowerCase(Locale.ROOT);
+            paths[i] = id.getPath().toLowerCase(Locale.ROOT);
+            names[i] = catalog.name(i).toLowerCase(Locale.ROOT);
+            addTrigrams(lists, ids[i], i);
+            addTrigrams(lists, names[i], i);
+        }
+
+        Long2ObjectOpenHashMap<int[]> postings = new Long2ObjectOpenHashMap<>(lists.size());
+        for (Long2ObjectMap.Entry<IntArrayList> entry : lists.long2ObjectEntrySet()) {
+            postings.put(entry.getLongKey(), entry.getValue().toIntArray());
+        }
+        postings.trim();
+        return new SearchIndex(ids, namespaces, paths, names, postings);
+    }
+
+    private static void addTrigrams(Long2ObjectOpenHashMap<IntArrayList> lists, String text, int index) {
+        for (int p = 0; p + GRAM <= text.length(); p++) {
+            long key = trigram(text, p);
+            IntArrayList list = lists.get(key);
+            if (list == null) {
+                list = new IntArrayList(4);
+                lists.put(key, list);
+            }
+            // Indices are added in ascending order, so a duplicate can only be the last element.
+            if (list.isEmpty() || list.getInt(list.size() - 1) != index) {
+                list.add(index);
+            }
+        }
+    }
+
+    private static long trigram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32)
+                | ((long) text.charAt(offset + 1) << 16)
+                | text.charAt(offset + 2);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * True if the entry's ID or display name contains the needle, or its path or
+     * display name is within the pattern's edit distance budget.
+     */
+    public boolean matches(int index, FuzzyPattern pattern) {
+        String needle = pattern.needle();
+        if (ids[index].contains(needle) || names[index].contains(needle)) {
+            return true;
+        }
+        int maxErrors = pattern.maxErrors();
+        return maxErrors > 0
+                && (pattern.distance(names[index]) <= maxErrors || pattern.distance(paths[index]) <= maxErrors);
+    }
+
+    /**
+     * Relevance of a matching entry: exact, prefix and word-boundary hits on the display
+     * name or path outrank plain substrings, which outrank namespace and fuzzy hits.
+     * Shorter names win ties.
+     */
+    int rankKey(int index, FuzzyPattern pattern) {
+        String needle = pattern.needle();
+        int score = Math.max(scoreText(names[index], needle), scoreText(paths[index], needle));
+        if (score == 0 && ids[index].contains(needle)) {
+            score = namespaces[index].startsWith(needle) ? SCORE_NAMESPACE : SCORE_SUBSTRING;
+        }
+        if (score == 0) {
+            int distance = Math.min(pattern.distance(names[index]), pattern.distance(paths[index]));
+            score = SCORE_FUZZY - distance * FUZZY_PENALTY;
+        }
+        int lengthBonus = 0xFF - Math.min(names[index].length(), 0xFF);
+        return (score << 8) | lengthBonus;
+    }
+
+    private static int scoreText(String text, String needle) {
+        if (text.equals(needle)) {
+            return SCORE_EXACT;
+        }
+        if (text.startsWith(needle)) {
+            return SCORE_PREFIX;
+        }
+        int at = text.indexOf(needle);
+        if (at < 0) {
+            return 0;
+        }
+        while (at > 0) {
+            if (isWordBoundary(text.charAt(at - 1))) {
+                return SCORE_WORD;
+            }
+            at = text.indexOf(needle, at + 1);
+        }
+        return SCORE_SUBSTRING;
+    }
+
+    private static boolean isWordBoundary(char c) {
+        return c == ' ' || c == '_' || c == '-' || c == '/' || c == ':' || c == '.';
+    }
+
+    /**
+     * Appends the index of every entry {@linkplain #matches matching} {@code pattern}
+     * to {@code out}, in ascending order.
+     *
+     * @param cancelled polled while scanning; once it returns true the search stops early
+     * @return false if the search was cancelled and {@code out} is incomplete
+     */
+    public boolean search(FuzzyPattern pattern, IntList out, BooleanSupplier cancelled) {
+        String needle = pattern.needle();
+        int size = ids.length;
+        if (needle.isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                out.add(i);
+            }
+            return true;
+        }
+
+        // Fuzzy hits need not share any trigram with the needle, so they can only be found by scanning.
+        if (needle.length() < GRAM || pattern.maxErrors() > 0) {
+            for (int i = 0; i < size; i++) {
+                if ((i & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                    return false;
+                }
+                if (matches(i, pattern)) {
+                    out.add(i);
+                }
+            }
+            return true;
+        }
+
+        int gramCount = needle.length() - GRAM + 1;
+        int[][] lists = new int[gramCount][];
+        for (int g = 0; g < gramCount; g++) {
+            int[] list = postings.get(trigram(needle, g));
+            if (list == null) {
+                return true;
+            }
+            lists[g] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+        // Drive the intersection from the rarest trigram; the others only need to be probed.
+        int[] driver = lists[0];
+        int[] cursors = new int[gramCount];
+        outer:
+        for (int d = 0; d < driver.length; d++) {
+            if ((d & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                return false;
+            }
+            int index = driver[d];
+            for (int g = 1; g < gramCount; g++) {
+                int[] list = lists[g];
+                int found = Arrays.binarySearch(list, cursors[g], list.length, index);
+                if (found < 0) {
+                    cursors[g] = -found - 1;
+                    if (cursors[g] >= list.length) {
+                        break outer;
+                    }
+                    continue outer;
+                }
+                cursors[g] = found;
+            }
+
+            // Trigram co-occurrence does not imply adjacency, so confirm the substring.
+            if (matches(index, pattern)) {
+                out.add(index);
+            }
+        }
+        return true;
+    }
+}
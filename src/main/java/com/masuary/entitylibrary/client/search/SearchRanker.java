@@ -0,0 +1,54 @@
+package com.masuary.entitylibrary.client.search;
+
+import javax.annotation.Nullable;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Orders search hits by relevance. Only the best {@link #RANKED_LIMIT} hits are
+ * sorted; the rest keep registry order behind them.
+ */
+public final class SearchRanker {
+    public static final int RANKED_LIMIT = 100;
+
+    private SearchRanker() {}
+
+    /**
+     * @param hits ascending entry indices, as returned by {@link IncrementalSearch}
+     * @return a new array holding the same indices in ranked order, or null if cancelled
+     */
+    @Nullable
+    public static int[] rank(SearchIndex index, FuzzyPattern pattern, int[] hits, BooleanSupplier cancelled) {
+        if (pattern.isEmpty() || hits.length <= 1) {
+            return hits;
+        }
+
+        TopKSelector top = new TopKSelector(Math.min(RANKED_LIMIT, hits.length));
+        for (int p = 0; p < hits.length; p++) {
+            if ((p & SearchIndex.CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            // High half: relevance. Low half: inverted position, so earlier registry entries win ties.
+            top.offer(((long) index.rankKey(hits[p], pattern) << 32) | (~p & 0xFFFFFFFFL));
+        }
+
+        int rankedCount = top.size();
+        long[] keys = new long[rankedCount];
+        top.drainDescending(keys);
+
+        int[] ranked = new int[hits.length];
+        boolean[] taken = new boolean[hits.length];
+        for (int i = 0; i < rankedCount; i++) {
+            int position = ~(int) keys[i];
+            ranked[i] = hits[position];
+            taken[position] = true;
+        }
+
+        int next = rankedCount;
+        for (int p = 0; p < hits.length; p++) {
+            if (!taken[p]) {
+                ranked[next++] = hits[p];
+            }
+        }
+        return ranked;
+    }
+}
@@ -0,0 +1,80 @@
+package com.masuary.entitylibrary.client.search;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs text searches on a background thread so typing never blocks the render thread.
+ * Every submission supersedes the previous one; stale jobs are cancelled and their
+ * results are never published. Published hits are ranked by {@link SearchRanker}.
+ */
+public final class SearchScheduler {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EntityLibrary Search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SearchIndex index;
+    private final IncrementalSearch search;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicReference<Result> completed = new AtomicReference<>();
+    @Nullable
+    private Future<?> running;
+
+    public record Result(int generation, String needle, int[] hits) {}
+
+    public SearchScheduler(SearchIndex index) {
+        this.index = index;
+        this.search = new IncrementalSearch(index);
+    }
+
+    /**
+     * Schedules a search for {@code needle}, cancelling any job still in flight.
+     *
+     * @param needle lowercased query
+     */
+    public void submit(String needle) {
+        int jobGeneration = generation.incrementAndGet();
+        if (running != null) {
+            running.cancel(false);
+        }
+        running = EXECUTOR.submit(() -> {
+            BooleanSupplier cancelled = () -> generation.get() != jobGeneration;
+            FuzzyPattern pattern = FuzzyPattern.compile(needle);
+            int[] hits = search.search(pattern, cancelled);
+            if (hits == null) {
+                return;
+            }
+            int[] ranked = SearchRanker.rank(index, pattern, hits, cancelled);
+            if (ranked != null && !cancelled.getAsBoolean()) {
+                completed.set(new Result(jobGeneration, needle, ranked));
+            }
+        });
+    }
+
+    /**
+     * Takes the finished result of the latest submission, if it has completed since the last poll.
+     */
+    @Nullable
+    public Result poll() {
+        Result result = completed.getAndSet(null);
+        if (result == null || result.generation() != generation.get()) {
+            return null;
+        }
+        return result;
+    }
+
+    public void cancel() {
+        generation.incrementAndGet();
+        if (running != null) {
+            running.cancel(false);
+            running = null;
+        }
+    }
+}
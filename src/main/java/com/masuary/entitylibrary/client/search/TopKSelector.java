@@ -0,0 +1,69 @@
+package com.masuary.entitylibrary.client.search;
+
+/**
+ * Keeps the {@code k} largest of a stream of keys in a bounded binary min-heap,
+ * so selecting from {@code n} candidates costs O(n log k).
+ */
+final class TopKSelector {
+    private final long[] heap;
+    private int size;
+
+    TopKSelector(int capacity) {
+        this.heap = new long[capacity];
+    }
+
+    void offer(long key) {
+        if (size < heap.length) {
+            heap[size] = key;
+            siftUp(size++);
+        } else if (heap.length > 0 && key > heap[0]) {
+            heap[0] = key;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Empties the heap into {@code out}, largest key first.
+     */
+    void drainDescending(long[] out) {
+        for (int i = size - 1; i >= 0; i--) {
+            out[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private void siftDown(int index) {
+        long key = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}